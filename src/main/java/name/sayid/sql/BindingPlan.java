@@ -0,0 +1,369 @@
+package name.sayid.sql;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binding plan of a class: its fields annotated by RespAnnotation, the
+ * values of the annotations, and the method handles access the fields and
+ * the constructor. The reflection is done once for each class, the plans
+ * are cached by a ClassValue and shared by threads. InsertSqlMaker,
+ * ValueMaker4JSON, ValueMaker4Record and JSONBinder bind objects by them.
+ */
+final class BindingPlan
+{
+    private static final MethodType GETTER
+        = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER
+        = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR
+        = MethodType.methodType(Object.class);
+
+    private static final ClassValue<BindingPlan> PLANS = new ClassValue<>()
+    {
+        @Override
+        protected BindingPlan computeValue(Class<?> type)
+        {
+            return new BindingPlan(type);
+        }
+    };
+
+    /**
+     * An annotated field.
+     */
+    static final class Member
+    {
+        final Field field;
+        final String respField;
+        final String entityField;
+        final boolean isList;
+        final Class<?> itemClass;
+        final boolean shouldAddQuoteMark;
+        /** The index in the annotated fields of the class. */
+        final int index;
+        /** The field is an object annotated by RespAnnotation. */
+        final boolean isNested;
+        private final FieldConverter _converter;
+        private final MethodHandle _getter;
+        private final MethodHandle _setter;
+
+        private Member(Field field, RespAnnotation annotation, int index,
+                       MethodHandles.Lookup lookup)
+        {
+            this.field = field;
+            this.respField = annotation.respField();
+            this.entityField = annotation.entityField();
+            this.isList = annotation.isList();
+            this.itemClass = annotation.itemClass();
+            this.shouldAddQuoteMark = annotation.shouldAddQuoteMark();
+            this.index = index;
+            Class<?> type = field.getType();
+            this.isNested = !isList && isAnnotated(type);
+            this._converter = FieldConverter.of(type);
+
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            MethodHandle getter, setter;
+            try {
+                getter = unreflect(lookup, field, false);
+                if (isStatic) getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                getter = getter.asType(GETTER);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            try {
+                setter = unreflect(lookup, field, true);
+                if (isStatic) setter = MethodHandles.dropArguments(setter, 0, Object.class);
+                setter = setter.asType(SETTER);
+            } catch (IllegalAccessException e) {
+                setter = null;
+            }
+            _getter = getter;
+            _setter = setter;
+        }
+
+        /**
+         * Make the getter or the setter of a field. A field the lookup can't
+         * access is made accessible only while its handle is made, the
+         * handle keeps the access, and the field is restored after. A final
+         * field has no setter.
+         */
+        private static MethodHandle unreflect(MethodHandles.Lookup lookup,
+                                              Field field, boolean isSetter)
+            throws IllegalAccessException
+        {
+            try {
+                return isSetter ? lookup.unreflectSetter(field)
+                    : lookup.unreflectGetter(field);
+            } catch (IllegalAccessException e) {
+                int modifiers = field.getModifiers();
+                if (isSetter && Modifier.isFinal(modifiers)) throw e;
+                boolean accessible = Modifier.isStatic(modifiers)
+                    && field.canAccess(null);
+                if (accessible) throw e;
+                field.setAccessible(true);
+                try {
+                    return isSetter ? lookup.unreflectSetter(field)
+                        : lookup.unreflectGetter(field);
+                } finally {
+                    field.setAccessible(false);
+                }
+            }
+        }
+
+        /**
+         * Get the value of the field.
+         * @param o The object.
+         * @return The value of the field.
+         */
+        Object get(Object o)
+        {
+            try {
+                return (Object) _getter.invokeExact(o);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+
+        /**
+         * Set the value of the field.
+         * @param o The object.
+         * @param v The value.
+         * @throws IllegalAccessException When the field is final.
+         * @throws IllegalArgumentException When the value can't be assigned
+         * to the field.
+         */
+        void set(Object o, Object v) throws IllegalAccessException
+        {
+            if (_setter == null)
+                throw new IllegalAccessException("The field can't be set: " + field);
+            try {
+                _setter.invokeExact(o, v);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException("Can not set " + field
+                    + " to " + v.getClass().getName(), e);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+
+        /**
+         * Set the field by the text of a value. A string field takes the text
+         * as it is, the others take the text translated to their types, a
+         * null value leaves a primitive field unchanged.
+         * @param o The object.
+         * @param text The text of the value.
+         * @param isNull Whether the value is a null literal.
+         * @throws IllegalAccessException When the field is final.
+         * @throws IllegalArgumentException When the text can't be translated
+         * to the type of the field.
+         */
+        void setText(Object o, String text, boolean isNull)
+            throws IllegalAccessException
+        {
+            if (_converter == null) {
+                set(o, text);
+            } else if (isNull) {
+                if (!field.getType().isPrimitive()) set(o, null);
+            } else {
+                Object v;
+                try {
+                    v = _converter.convert(text);
+                } catch (IllegalArgumentException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Can not set " + field
+                        + " by " + text, e);
+                }
+                set(o, v);
+            }
+        }
+
+        /**
+         * Whether the field reads the numbers and the booleans without their
+         * texts, by {@link #setValue}.
+         */
+        boolean isTyped()
+        {
+            return _converter != null && _converter.isTyped();
+        }
+
+        /**
+         * Set the field by a number or a boolean of json. The typed fields
+         * read it by the accessors of NativeExp, the others take its text.
+         * @param o The object.
+         * @param value The value.
+         * @throws IllegalAccessException When the field is final.
+         * @throws IllegalArgumentException When the value can't be
+         * translated to the type of the field.
+         */
+        void setValue(Object o, SimpleJSON.NativeExp value)
+            throws IllegalAccessException
+        {
+            if (_converter == null) {
+                set(o, value.asString());
+                return;
+            }
+            try {
+                set(o, _converter.convert(value));
+            } catch (IllegalArgumentException | IllegalAccessException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Can not set " + field
+                    + " by " + value, e);
+            }
+        }
+
+        /**
+         * Set a typed field by the last scanned value of a tokenizer, it
+         * isn't quoted and isn't null. It is read from the source of the
+         * tokenizer, so no text is made for it.
+         * @param o The object.
+         * @param t The tokenizer.
+         * @throws IllegalAccessException When the field is final.
+         * @throws IllegalArgumentException When the value can't be
+         * translated to the type of the field.
+         */
+        void setValue(Object o, JSONTokenizer t)
+            throws IllegalAccessException
+        {
+            try {
+                set(o, _converter.convert(t));
+            } catch (IllegalArgumentException | IllegalAccessException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Can not set " + field
+                    + " by " + t.valueString(), e);
+            }
+        }
+    }
+
+    /**
+     * Whether a json value is set by {@link Member#setValue}, it is a
+     * number or a boolean.
+     */
+    static boolean isTyped(SimpleJSON.NativeExp value)
+    {
+        var type = value.getType();
+        return type == SimpleJSON.NativeExp.Type.NUMBER
+            || type == SimpleJSON.NativeExp.Type.BOOLEAN;
+    }
+
+    /**
+     * Whether a class has fields annotated by RespAnnotation, so its objects
+     * can be made from json expressions. The classes of java aren't
+     * checked.
+     */
+    private static boolean isAnnotated(Class<?> type)
+    {
+        if (type.isPrimitive() || type.isArray() || type.isEnum()
+            || type.getName().startsWith("java."))
+            return false;
+        for (Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(RespAnnotation.class)) return true;
+        }
+        return false;
+    }
+
+    final Class<?> clazz;
+    /** All annotated fields, in the declared order. */
+    final List<Member> members;
+    /** The annotated fields have respField, in the declared order. */
+    final List<Member> respMembers;
+    /** The annotated fields have entityField, in the declared order. */
+    final List<Member> entityMembers;
+    private final Map<String, Member> _byRespField;
+    private final MethodHandle _constructor;
+    private final ReflectiveOperationException _constructorError;
+
+    private BindingPlan(Class<?> clazz)
+    {
+        this.clazz = clazz;
+        var lookup = MethodHandles.lookup();
+        var all = new ArrayList<Member>();
+        var resp = new ArrayList<Member>();
+        var entity = new ArrayList<Member>();
+        var byResp = new HashMap<String, Member>();
+        for (Field field : clazz.getDeclaredFields()) {
+            RespAnnotation annotation = field.getAnnotation(RespAnnotation.class);
+            if (annotation == null) continue;
+            var m = new Member(field, annotation, all.size(), lookup);
+            all.add(m);
+            if (!m.respField.isEmpty()) {
+                resp.add(m);
+                byResp.putIfAbsent(m.respField, m);
+            }
+            if (!m.entityField.isEmpty()) entity.add(m);
+        }
+        members = Collections.unmodifiableList(all);
+        respMembers = Collections.unmodifiableList(resp);
+        entityMembers = Collections.unmodifiableList(entity);
+        _byRespField = byResp;
+
+        MethodHandle constructor = null;
+        ReflectiveOperationException error = null;
+        try {
+            Constructor<?> c = clazz.getConstructor();
+            constructor = lookup.unreflectConstructor(c).asType(CONSTRUCTOR);
+        } catch (ReflectiveOperationException e) {
+            error = e;
+        }
+        _constructor = constructor;
+        _constructorError = error;
+    }
+
+    /**
+     * The plan of a class, it is made at the first call.
+     * @param clazz The class.
+     * @return The plan.
+     */
+    static BindingPlan of(Class<?> clazz)
+    {
+        return PLANS.get(clazz);
+    }
+
+    /**
+     * The field annotated by a respField.
+     * @param key The respField.
+     * @return The first field has the respField, null when there isn't.
+     */
+    Member byRespField(String key)
+    {
+        return _byRespField.get(key);
+    }
+
+    /**
+     * Make an object by the public constructor without parameters.
+     * @return The new object.
+     * @throws ReflectiveOperationException When there isn't the constructor,
+     * or the constructor throws an exception.
+     */
+    Object newInstance() throws ReflectiveOperationException
+    {
+        if (_constructor == null) {
+            var e = new InstantiationException(
+                clazz.getName() + " can't be made.");
+            e.initCause(_constructorError);
+            throw e;
+        }
+        try {
+            return (Object) _constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+}
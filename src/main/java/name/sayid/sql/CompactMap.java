@@ -0,0 +1,182 @@
+package name.sayid.sql;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map keeps its entries in two arrays by the inserting order. A small map
+ * finds a key by comparing the keys one by one, it is faster than hashing
+ * for a few keys and costs no node objects. When the map grows over a
+ * threshold, an open addressing index of the slots is built, so a large
+ * map still finds a key in O(1).
+ * <p>
+ *     Putting an existing key replaces the value in its slot, the order
+ *     isn't changed. Entries can't be removed.
+ * </p>
+ * @param <V> The value type.
+ */
+final class CompactMap<V> extends AbstractMap<String, V>
+{
+    /** When the size is over it, the hash index is used. */
+    static final int HASH_THRESHOLD = 8;
+
+    private String[] _keys;
+    private Object[] _values;
+    private int _size = 0;
+    private int[] _index = null;
+
+    CompactMap()
+    {
+        this(4);
+    }
+
+    CompactMap(int capacity)
+    {
+        _keys = new String[Math.max(capacity, 1)];
+        _values = new Object[_keys.length];
+    }
+
+    private int slotOf(Object key)
+    {
+        if (_index == null) {
+            for (int i = 0; i < _size; i++) {
+                if (_keys[i].equals(key)) return i;
+            }
+            return -1;
+        }
+        int mask = _index.length - 1;
+        for (int h = spread(key.hashCode()) & mask; ; h = (h + 1) & mask) {
+            int slot = _index[h] - 1;
+            if (slot < 0) return -1;
+            if (_keys[slot].equals(key)) return slot;
+        }
+    }
+
+    private static int spread(int h)
+    {
+        return h ^ (h >>> 16);
+    }
+
+    private void index(int slot)
+    {
+        int mask = _index.length - 1;
+        int h = spread(_keys[slot].hashCode()) & mask;
+        while (_index[h] != 0) h = (h + 1) & mask;
+        _index[h] = slot + 1;
+    }
+
+    private void reindex()
+    {
+        int len = Integer.highestOneBit(_keys.length * 2 - 1) << 1;
+        _index = new int[len];
+        for (int i = 0; i < _size; i++) index(i);
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        if (key == null) return null;
+        int slot = slotOf(key);
+        return slot < 0 ? null : value(slot);
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return key != null && slotOf(key) >= 0;
+    }
+
+    @Override
+    public V put(String key, V value)
+    {
+        if (key == null)
+            throw new NullPointerException("The key can't be null.");
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            V old = value(slot);
+            _values[slot] = value;
+            return old;
+        }
+
+        if (_size == _keys.length) {
+            int len = _keys.length * 2;
+            _keys = Arrays.copyOf(_keys, len);
+            _values = Arrays.copyOf(_values, len);
+            if (_index != null) reindex();
+        }
+        _keys[_size] = key;
+        _values[_size] = value;
+        _size++;
+        if (_index != null) index(_size - 1);
+        else if (_size > HASH_THRESHOLD) reindex();
+        return null;
+    }
+
+    /**
+     * Release the unused slots, it is called when the map is built
+     * completely.
+     */
+    void trimToSize()
+    {
+        if (_size == _keys.length || _size == 0) return;
+        _keys = Arrays.copyOf(_keys, _size);
+        _values = Arrays.copyOf(_values, _size);
+        if (_index != null) reindex();
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int slot)
+    {
+        return (V) _values[slot];
+    }
+
+    @Override
+    public int size()
+    {
+        return _size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet()
+    {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, V>> iterator()
+            {
+                return new Iterator<>() {
+                    private int _slot = 0;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return _slot < _size;
+                    }
+
+                    @Override
+                    public Entry<String, V> next()
+                    {
+                        if (_slot >= _size) throw new NoSuchElementException();
+                        int slot = _slot++;
+                        return new SimpleImmutableEntry<>(_keys[slot], value(slot));
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return _size;
+            }
+        };
+    }
+}
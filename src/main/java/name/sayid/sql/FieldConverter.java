@@ -0,0 +1,267 @@
+package name.sayid.sql;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleFunction;
+import java.util.function.LongFunction;
+
+/**
+ * A converter translates the text of a value to the type of a field. It is
+ * selected once for each field by the binding plan, so a value is parsed
+ * once when an object is made, instead of every time the field is read.
+ * The number and boolean fields are typed: they read the numbers and the
+ * booleans of json by the accessors of NativeExp, or from the source of a
+ * tokenizer, without translating their texts.
+ */
+@FunctionalInterface
+interface FieldConverter
+{
+    /**
+     * Translate a text.
+     * @param text The text, not null.
+     * @return The value of the field type.
+     * @throws IllegalArgumentException When the text can't be translated.
+     */
+    Object convert(String text);
+
+    /**
+     * Translate a number or a boolean of json. The fields take the text of
+     * the value, unless the converter is typed.
+     * @param value The value.
+     * @return The value of the field type.
+     * @throws IllegalArgumentException When the value can't be translated.
+     */
+    default Object convert(SimpleJSON.NativeExp value)
+    {
+        return convert(value.asString());
+    }
+
+    /**
+     * Translate the last scanned value of a tokenizer, it isn't quoted and
+     * isn't null. The fields take the text of the value, unless the
+     * converter is typed.
+     * @param t The tokenizer.
+     * @return The value of the field type.
+     * @throws IllegalArgumentException When the value can't be translated.
+     */
+    default Object convert(JSONTokenizer t)
+    {
+        return convert(t.valueString());
+    }
+
+    /**
+     * Whether the converter reads the numbers and the booleans without
+     * their texts.
+     * @return True for the number and boolean fields.
+     */
+    default boolean isTyped()
+    {
+        return false;
+    }
+
+    /**
+     * The converter for a type.
+     * @param type The type of a field.
+     * @return The converter, null when the field takes the text as it is,
+     * or the type isn't supported.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static FieldConverter of(Class<?> type)
+    {
+        if (type.isEnum())
+            return s -> Enum.valueOf((Class<? extends Enum>) type, s.strip());
+        return Converters.BY_TYPE.get(type);
+    }
+
+    /**
+     * The typed converter of an integer field.
+     * @param text The converter of a text.
+     * @param f Translate a long to the field type.
+     * @return The converter.
+     */
+    static FieldConverter ofLong(FieldConverter text, LongFunction<Object> f)
+    {
+        return new Typed(text)
+        {
+            @Override
+            public Object convert(SimpleJSON.NativeExp value)
+            {
+                return f.apply(value.asLong());
+            }
+
+            @Override
+            public Object convert(JSONTokenizer t)
+            {
+                try {
+                    return f.apply(t.valueLong());
+                } catch (SimpleJSON.JSONFormatException e) {
+                    throw new NumberFormatException(e.getMessage());
+                }
+            }
+        };
+    }
+
+    /**
+     * The typed converter of a floating field.
+     * @param text The converter of a text.
+     * @param f Translate a double to the field type.
+     * @return The converter.
+     */
+    static FieldConverter ofDouble(FieldConverter text, DoubleFunction<Object> f)
+    {
+        return new Typed(text)
+        {
+            @Override
+            public Object convert(SimpleJSON.NativeExp value)
+            {
+                return f.apply(value.asDouble());
+            }
+
+            @Override
+            public Object convert(JSONTokenizer t)
+            {
+                try {
+                    return f.apply(t.valueDouble());
+                } catch (SimpleJSON.JSONFormatException e) {
+                    throw new NumberFormatException(e.getMessage());
+                }
+            }
+        };
+    }
+
+    /**
+     * A typed converter, its texts are translated by a converter.
+     */
+    abstract class Typed implements FieldConverter
+    {
+        private final FieldConverter _text;
+
+        Typed(FieldConverter text)
+        {
+            _text = text;
+        }
+
+        @Override
+        public Object convert(String s)
+        {
+            return _text.convert(s);
+        }
+
+        @Override
+        public boolean isTyped()
+        {
+            return true;
+        }
+    }
+
+    /**
+     * The converters of the supported types.
+     */
+    final class Converters
+    {
+        static final Map<Class<?>, FieldConverter> BY_TYPE = new HashMap<>();
+
+        private Converters() {}
+
+        static {
+            FieldConverter toInt = ofLong(s -> Integer.parseInt(s.strip()),
+                Math::toIntExact);
+            FieldConverter toLong = ofLong(s -> Long.parseLong(s.strip()),
+                v -> v);
+            FieldConverter toShort = ofLong(s -> Short.parseShort(s.strip()),
+                v -> (short) exact(v, Short.MIN_VALUE, Short.MAX_VALUE));
+            FieldConverter toByte = ofLong(s -> Byte.parseByte(s.strip()),
+                v -> (byte) exact(v, Byte.MIN_VALUE, Byte.MAX_VALUE));
+            FieldConverter toDouble = ofDouble(s -> Double.parseDouble(s.strip()),
+                v -> v);
+            FieldConverter toFloat = ofDouble(s -> Float.parseFloat(s.strip()),
+                v -> (float) v);
+            FieldConverter toBoolean = new Typed(Converters::toBoolean)
+            {
+                @Override
+                public Object convert(SimpleJSON.NativeExp value)
+                {
+                    if (value.getType() == SimpleJSON.NativeExp.Type.BOOLEAN)
+                        return value.asBoolean();
+                    return toBoolean(value.asString());
+                }
+
+                @Override
+                public Object convert(JSONTokenizer t)
+                {
+                    Boolean v = literal(t);
+                    return v != null ? v : toBoolean(t.valueString());
+                }
+            };
+            BY_TYPE.put(int.class, toInt);
+            BY_TYPE.put(Integer.class, toInt);
+            BY_TYPE.put(long.class, toLong);
+            BY_TYPE.put(Long.class, toLong);
+            BY_TYPE.put(short.class, toShort);
+            BY_TYPE.put(Short.class, toShort);
+            BY_TYPE.put(byte.class, toByte);
+            BY_TYPE.put(Byte.class, toByte);
+            BY_TYPE.put(double.class, toDouble);
+            BY_TYPE.put(Double.class, toDouble);
+            BY_TYPE.put(float.class, toFloat);
+            BY_TYPE.put(Float.class, toFloat);
+            BY_TYPE.put(boolean.class, toBoolean);
+            BY_TYPE.put(Boolean.class, toBoolean);
+            BY_TYPE.put(BigDecimal.class, s -> new BigDecimal(s.strip()));
+            BY_TYPE.put(BigInteger.class, s -> new BigInteger(s.strip()));
+            BY_TYPE.put(LocalDate.class, s -> LocalDate.parse(s.strip()));
+            BY_TYPE.put(LocalTime.class, s -> LocalTime.parse(s.strip()));
+            BY_TYPE.put(LocalDateTime.class,
+                s -> LocalDateTime.parse(s.strip().replace(' ', 'T')));
+            BY_TYPE.put(Instant.class, s -> Instant.parse(s.strip()));
+            BY_TYPE.put(OffsetDateTime.class, s -> OffsetDateTime.parse(s.strip()));
+            BY_TYPE.put(ZonedDateTime.class, s -> ZonedDateTime.parse(s.strip()));
+        }
+
+        /**
+         * An integer in a range.
+         */
+        private static long exact(long v, long min, long max)
+        {
+            if (v < min || v > max)
+                throw new IllegalArgumentException("It is out of range: " + v);
+            return v;
+        }
+
+        /**
+         * The true or false literal of a tokenizer, null when the value is
+         * another literal.
+         */
+        private static Boolean literal(JSONTokenizer t)
+        {
+            int i = 0, end = t.valueLength();
+            while (i < end && JSONTokenizer.isBlank(t.valueCharAt(i))) i++;
+            while (end > i && JSONTokenizer.isBlank(t.valueCharAt(end - 1))) end--;
+            String word = end - i == 4 ? "true" : end - i == 5 ? "false" : null;
+            if (word == null) return null;
+            for (int k = 0; k < word.length(); k++) {
+                if (t.valueCharAt(i + k) != word.charAt(k)) return null;
+            }
+            return word.length() == 4;
+        }
+
+        /**
+         * A boolean is true or false, or 1 or 0 as a column of databases.
+         */
+        private static Boolean toBoolean(String text)
+        {
+            String s = text.strip();
+            if (s.equalsIgnoreCase("true") || s.equals("1")) return Boolean.TRUE;
+            if (s.equalsIgnoreCase("false") || s.equals("0")) return Boolean.FALSE;
+            throw new IllegalArgumentException("It isn't a boolean: " + text);
+        }
+    }
+}
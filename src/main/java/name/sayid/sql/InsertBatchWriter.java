@@ -0,0 +1,357 @@
+package name.sayid.sql;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * This class writes objects to a table by jdbc batches. A parameterized
+ * insert sentence is prepared once for each class of objects, the fields
+ * annotated by entityField are bound to the parameters by the typed setters
+ * of PreparedStatement, so the values are neither escaped nor parsed by the
+ * database as texts.
+ * <p>
+ *     The rows are sent by executeBatch when a batch is full, when the class
+ *     of objects changes, and at flush and close. When a commit interval is
+ *     given, the writer turns off the auto commit of the connection and
+ *     commits every interval rows; the auto commit is restored at close.
+ * </p>
+ * <p>
+ *     A writer isn't shared by threads. The connection isn't closed by it.
+ * </p>
+ */
+public class InsertBatchWriter implements AutoCloseable {
+    private final static Logger L
+            = Logger.getLogger(InsertBatchWriter.class.getName());
+    /** The default rows of a batch. */
+    public final static int DEFAULT_BATCH_SIZE = 1000;
+
+    private final Connection _connection;
+    private final String _tableName;
+    private final int _batchSize;
+    private final int _commitInterval;
+    private final boolean _autoCommit;
+    private final Map<Class<?>, Insert> _inserts = new HashMap<>();
+    private Insert _current;
+    private int _pending = 0;
+    private long _uncommitted = 0;
+    private long _written = 0;
+    private boolean _closed = false;
+
+    /**
+     * Constructor, rows are sent every {@value #DEFAULT_BATCH_SIZE} objects,
+     * and the transaction of the connection isn't changed.
+     * @param connection The connection to the database.
+     * @param tableName Table name of insert sql statement.
+     * @throws SQLException
+     */
+    public InsertBatchWriter(Connection connection, String tableName) throws SQLException {
+        this(connection, tableName, DEFAULT_BATCH_SIZE, 0);
+    }
+
+    /**
+     * Constructor.
+     * @param connection The connection to the database.
+     * @param tableName Table name of insert sql statement.
+     * @param batchSize The rows of a batch.
+     * @param commitInterval The rows of a transaction, 0 means the writer
+     *                       doesn't commit, and the transaction of the
+     *                       connection isn't changed.
+     * @throws SQLException
+     */
+    public InsertBatchWriter(Connection connection, String tableName,
+                             int batchSize, int commitInterval) throws SQLException {
+        if (batchSize <= 0 || commitInterval < 0)
+            throw new IllegalArgumentException(
+                    "The sizes are illegal: " + batchSize + ", " + commitInterval);
+        _connection = connection;
+        _tableName = tableName;
+        _batchSize = batchSize;
+        _commitInterval = commitInterval;
+        _autoCommit = connection.getAutoCommit();
+        if (commitInterval > 0 && _autoCommit) connection.setAutoCommit(false);
+    }
+
+    /**
+     * Write an object to the table. The input obj must use annotations to
+     * sign and describe how to map the property to the table column, as
+     * the parameter of {@link InsertSqlMaker#makeSql(Object)}.
+     * @param obj The object, a null object is skipped.
+     * @throws SQLException
+     */
+    public void write(final Object obj) throws SQLException {
+        if (_closed) throw new SQLException("The writer is closed.");
+        if (obj == null) return;
+        if (_current == null || _current.clazz != obj.getClass()) {
+            executeBatch();
+            _current = _inserts.get(obj.getClass());
+            if (_current == null) {
+                _current = new Insert(obj.getClass());
+                _inserts.put(obj.getClass(), _current);
+            }
+        }
+        _current.bind(obj);
+        _current.statement.addBatch();
+        _pending++;
+        if (_pending >= _batchSize) executeBatch();
+        if (_commitInterval > 0 && _uncommitted + _pending >= _commitInterval) commit();
+    }
+
+    /**
+     * Write objects to the table in order.
+     * @param objs The objects.
+     * @throws SQLException
+     */
+    public void writeAll(final Iterable<?> objs) throws SQLException {
+        writeAll(objs.iterator());
+    }
+
+    /**
+     * Write objects to the table in order.
+     * @param objs The objects, as a stream by {@code stream.iterator()}.
+     * @throws SQLException
+     */
+    public void writeAll(final Iterator<?> objs) throws SQLException {
+        while (objs.hasNext()) write(objs.next());
+    }
+
+    /**
+     * Send the rows aren't sent yet, and commit them when the writer has a
+     * commit interval.
+     * @throws SQLException
+     */
+    public void flush() throws SQLException {
+        executeBatch();
+        if (_commitInterval > 0 && _uncommitted > 0) commit();
+    }
+
+    /**
+     * The count of the rows sent to the database.
+     * @return The count of rows.
+     */
+    public long getWrittenCount() {
+        return _written;
+    }
+
+    /**
+     * Flush the rows, close the statements, and restore the auto commit of
+     * the connection. When the rows can't be flushed, the transaction of the
+     * writer is rolled back.
+     * @throws SQLException
+     */
+    @Override
+    public void close() throws SQLException {
+        if (_closed) return;
+        _closed = true;
+        SQLException error = null;
+        try {
+            flush();
+        } catch (SQLException e) {
+            error = e;
+            if (_commitInterval > 0) {
+                try {
+                    _connection.rollback();
+                } catch (SQLException e_) {
+                    e.addSuppressed(e_);
+                }
+            }
+        }
+        for (Insert insert : _inserts.values()) {
+            try {
+                insert.statement.close();
+            } catch (SQLException e) {
+                if (error == null) error = e; else error.addSuppressed(e);
+            }
+        }
+        _inserts.clear();
+        _current = null;
+        if (_commitInterval > 0 && _autoCommit) {
+            try {
+                _connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                if (error == null) error = e; else error.addSuppressed(e);
+            }
+        }
+        if (error != null) throw error;
+    }
+
+    private void executeBatch() throws SQLException {
+        if (_pending == 0) return;
+        _current.statement.executeBatch();
+        _written += _pending;
+        _uncommitted += _pending;
+        _pending = 0;
+    }
+
+    private void commit() throws SQLException {
+        executeBatch();
+        _connection.commit();
+        L.fine(() -> "Committed " + _uncommitted + " rows to " + _tableName);
+        _uncommitted = 0;
+    }
+
+    /**
+     * The prepared insert sentence of a class.
+     */
+    private final class Insert {
+        final Class<?> clazz;
+        final PreparedStatement statement;
+        private final BindingPlan.Member[] _members;
+        private final ParamSetter[] _setters;
+
+        Insert(Class<?> clazz) throws SQLException {
+            this.clazz = clazz;
+            // A column annotated by several fields takes the last one, as
+            // InsertSqlMaker does.
+            final var columns = new LinkedHashMap<String, BindingPlan.Member>();
+            for (BindingPlan.Member m : BindingPlan.of(clazz).entityMembers) {
+                columns.put(m.entityField, m);
+            }
+            if (columns.isEmpty())
+                throw new IllegalArgumentException(
+                        clazz.getName() + " hasn't fields annotated by entityField.");
+            _members = columns.values().toArray(new BindingPlan.Member[0]);
+            _setters = new ParamSetter[_members.length];
+            final var marks = new ArrayList<String>(_members.length);
+            for (int i = 0; i < _members.length; i++) {
+                _setters[i] = ParamSetter.of(_members[i]);
+                marks.add("?");
+            }
+            final String sql = "INSERT INTO " + _tableName
+                    + "(" + String.join(",", columns.keySet()) + ") VALUES ("
+                    + String.join(",", marks) + ")";
+            statement = _connection.prepareStatement(sql);
+        }
+
+        void bind(Object obj) throws SQLException {
+            for (int i = 0; i < _members.length; i++) {
+                final Object v = _members[i].get(obj);
+                if (v == null) {
+                    statement.setNull(i + 1, _setters[i].sqlType());
+                } else {
+                    _setters[i].set(statement, i + 1, v);
+                }
+            }
+        }
+    }
+
+    /**
+     * A setter binds a value of a field type to a parameter. It is selected
+     * once for each field when the sentence of a class is prepared.
+     */
+    interface ParamSetter {
+        /**
+         * Bind a value.
+         * @param ps The statement.
+         * @param index The index of the parameter, from 1.
+         * @param v The value, not null.
+         * @throws SQLException
+         */
+        void set(PreparedStatement ps, int index, Object v) throws SQLException;
+
+        /**
+         * The sql type of a null value.
+         * @return A constant of {@link Types}.
+         */
+        default int sqlType() {
+            return Types.VARCHAR;
+        }
+
+        /**
+         * The setter of a field.
+         * @param m The field.
+         * @return The setter, the types aren't supported are bound by their
+         * texts as InsertSqlMaker does.
+         */
+        static ParamSetter of(BindingPlan.Member m) {
+            final Class<?> type = m.field.getType();
+            if (type.isEnum()) return (ps, i, v) -> ps.setString(i, ((Enum<?>) v).name());
+            final ParamSetter setter = Setters.BY_TYPE.get(type);
+            if (setter != null) return setter;
+            if (m.shouldAddQuoteMark) return (ps, i, v) -> ps.setString(i, v.toString());
+            return (ps, i, v) -> ps.setString(i, v.toString().trim());
+        }
+
+        /**
+         * The setter has a sql type for null values.
+         */
+        static ParamSetter typed(int sqlType, ParamSetter setter) {
+            return new ParamSetter() {
+                @Override
+                public void set(PreparedStatement ps, int index, Object v) throws SQLException {
+                    setter.set(ps, index, v);
+                }
+
+                @Override
+                public int sqlType() {
+                    return sqlType;
+                }
+            };
+        }
+
+        /**
+         * The setters of the supported types.
+         */
+        final class Setters {
+            static final Map<Class<?>, ParamSetter> BY_TYPE = new HashMap<>();
+
+            private Setters() {}
+
+            private static void put(ParamSetter setter, Class<?>... types) {
+                for (Class<?> type : types) BY_TYPE.put(type, setter);
+            }
+
+            static {
+                put(typed(Types.INTEGER, (ps, i, v) -> ps.setInt(i, (Integer) v)),
+                        int.class, Integer.class);
+                put(typed(Types.BIGINT, (ps, i, v) -> ps.setLong(i, (Long) v)),
+                        long.class, Long.class);
+                put(typed(Types.SMALLINT, (ps, i, v) -> ps.setShort(i, (Short) v)),
+                        short.class, Short.class);
+                put(typed(Types.TINYINT, (ps, i, v) -> ps.setByte(i, (Byte) v)),
+                        byte.class, Byte.class);
+                put(typed(Types.DOUBLE, (ps, i, v) -> ps.setDouble(i, (Double) v)),
+                        double.class, Double.class);
+                put(typed(Types.REAL, (ps, i, v) -> ps.setFloat(i, (Float) v)),
+                        float.class, Float.class);
+                put(typed(Types.BOOLEAN, (ps, i, v) -> ps.setBoolean(i, (Boolean) v)),
+                        boolean.class, Boolean.class);
+                put((ps, i, v) -> ps.setString(i, (String) v), String.class);
+                put(typed(Types.DECIMAL, (ps, i, v) -> ps.setBigDecimal(i, (BigDecimal) v)),
+                        BigDecimal.class);
+                put(typed(Types.DECIMAL,
+                        (ps, i, v) -> ps.setBigDecimal(i, new BigDecimal((BigInteger) v))),
+                        BigInteger.class);
+                put(typed(Types.VARBINARY, (ps, i, v) -> ps.setBytes(i, (byte[]) v)),
+                        byte[].class);
+                put(typed(Types.DATE, (ps, i, v) -> ps.setObject(i, v, Types.DATE)),
+                        LocalDate.class, java.sql.Date.class);
+                put(typed(Types.TIME, (ps, i, v) -> ps.setObject(i, v, Types.TIME)),
+                        LocalTime.class, java.sql.Time.class);
+                put(typed(Types.TIMESTAMP, (ps, i, v) -> ps.setObject(i, v, Types.TIMESTAMP)),
+                        LocalDateTime.class, Timestamp.class);
+                put(typed(Types.TIMESTAMP_WITH_TIMEZONE,
+                        (ps, i, v) -> ps.setObject(i, v, Types.TIMESTAMP_WITH_TIMEZONE)),
+                        OffsetDateTime.class);
+                put(typed(Types.TIMESTAMP,
+                        (ps, i, v) -> ps.setTimestamp(i, Timestamp.from((Instant) v))),
+                        Instant.class);
+            }
+        }
+    }
+}
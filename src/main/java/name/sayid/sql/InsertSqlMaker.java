@@ -2,21 +2,26 @@ package name.sayid.sql;
 
 import name.sayid.common.StringsHelper;
 
-import java.lang.reflect.Field;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.logging.Logger;
-
-import static java.util.logging.Level.WARNING;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * This class is helper of making a insert sql statement.
  */
 public class InsertSqlMaker {
-    private final static Logger L
-            = Logger.getLogger(InsertSqlMaker.class.getName());
     private final static String INSERT_SQL = "INSERT INTO %s(%s) VALUES (%s);";
+    /** The default most rows of a batch statement. */
+    public final static int DEFAULT_MAX_ROWS = 1000;
+    /** The default most bytes of a batch statement, max_allowed_packet of mysql 5.7. */
+    public final static int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
     private final String _tableName;
+    private final int _maxRows;
+    private final int _maxBytes;
 
     /**
      * Constructor, The object constructor must be gave a table name for parameter
@@ -24,7 +29,24 @@ public class InsertSqlMaker {
      * @param tableName Table name of insert sql statement
      */
     public InsertSqlMaker(String tableName) {
+        this(tableName, DEFAULT_MAX_ROWS, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructor, with the bounds of the batch statements.
+     * @param tableName Table name of insert sql statement
+     * @param maxRows The most rows of a batch statement.
+     * @param maxBytes The most utf-8 bytes of a batch statement, as
+     *                 max_allowed_packet of mysql. A row longer than it is
+     *                 put into a statement alone.
+     */
+    public InsertSqlMaker(String tableName, int maxRows, int maxBytes) {
+        if (maxRows <= 0 || maxBytes <= 0)
+            throw new IllegalArgumentException(
+                    "The bounds must be positive: " + maxRows + ", " + maxBytes);
         _tableName = tableName;
+        _maxRows = maxRows;
+        _maxBytes = maxBytes;
     }
 
     /**
@@ -38,40 +60,171 @@ public class InsertSqlMaker {
      * @throws IllegalAccessException
      */
     public String makeSql(final Object obj) throws IllegalAccessException {
-        final var hm = new HashMap<String, String>();
-        Field fiels[] = obj.getClass().getDeclaredFields();
-        for(Field x: fiels) {
-            boolean b = x.canAccess(obj);
-            x.setAccessible(true);
-            try {
-                var annotation = x.getAnnotation(RespAnnotation.class);
-                String clnm = annotation.entityField();
-                if (!clnm.isEmpty()) {
-                    var v = x.get(obj);
-                    if (v==null) {
-                        hm.put(clnm, "null");
-                    } else {
-                        boolean quteReq = annotation.shouldAddQuoteMark();
-                        if (quteReq) {
-                            var v_ = StringsHelper.mysqlStrAddTrans(v.toString());
-                            hm.put(clnm, "\'" + v_ + "\'");
-                        } else {
-                            String vs = v.toString();
-                            hm.put(clnm, vs.trim());
-                        }
-                    }
-                }
-            } catch (IllegalAccessException e) {
-                L.log(WARNING, e.getMessage());
-                L.log(WARNING, StringsHelper.contextOfException(e));
-                throw e;
-            } finally {
-                x.setAccessible(b);
-            }
+        final var hm = new LinkedHashMap<String, String>();
+        for (BindingPlan.Member m : BindingPlan.of(obj.getClass()).entityMembers) {
+            hm.put(m.entityField, valueOf(m, obj));
         }
         return make(hm);
     }
 
+    /**
+     * It makes multi-row insert sentences of objects, as
+     * {@code INSERT INTO t(a,b) VALUES (..),(..);}. A sentence has no more
+     * rows and bytes than the bounds of the maker, and the objects in a
+     * sentence have the same class. The columns are in the declared order
+     * of the annotated fields, so the sentences of a class have the same
+     * column list.
+     * @param objs The objects should be insert into the table, annotated as
+     *             the parameter of {@link #makeSql(Object)}. The null objects
+     *             and the objects without entity fields are skipped.
+     * @return The insert sql statements.
+     */
+    public List<String> makeBatchSql(final Iterable<?> objs) {
+        final var list = new ArrayList<String>();
+        makeBatchSql(objs.iterator(), list::add);
+        return list;
+    }
+
+    /**
+     * It makes multi-row insert sentences of a stream of objects, as
+     * {@link #makeBatchSql(Iterable)}.
+     * @param objs The objects should be insert into the table.
+     * @return The insert sql statements.
+     */
+    public List<String> makeBatchSql(final Stream<?> objs) {
+        final var list = new ArrayList<String>();
+        makeBatchSql(objs.iterator(), list::add);
+        return list;
+    }
+
+    /**
+     * It makes multi-row insert sentences of objects, as
+     * {@link #makeBatchSql(Iterable)}, and gives every sentence to a
+     * consumer once it is made, so the sentences aren't kept in memory.
+     * @param objs The objects should be insert into the table.
+     * @param consumer It takes the sentences in order.
+     */
+    public void makeBatchSql(final Iterator<?> objs, final Consumer<String> consumer) {
+        final var batch = new Batch(consumer);
+        while (objs.hasNext()) {
+            final Object obj = objs.next();
+            if (obj == null) continue;
+            final var plan = BindingPlan.of(obj.getClass());
+            if (plan.entityMembers.isEmpty()) continue;
+            if (plan != batch.plan) batch.begin(plan);
+            batch.add(batch.row(obj));
+        }
+        batch.flush();
+    }
+
+    /**
+     * The multi-row sentence being made.
+     */
+    private final class Batch {
+        private final Consumer<String> _consumer;
+        private final StringBuilder _sb = new StringBuilder();
+        BindingPlan plan;
+        private List<BindingPlan.Member> _columns;
+        private String _head;
+        private int _headBytes;
+        private int _rows;
+        private int _bytes;
+
+        Batch(Consumer<String> consumer) {
+            _consumer = consumer;
+        }
+
+        /**
+         * Flush the sentence and begin the sentences of another class.
+         */
+        void begin(BindingPlan plan) {
+            flush();
+            this.plan = plan;
+            _columns = columns(plan);
+            final var fields = new ArrayList<String>(_columns.size());
+            for (BindingPlan.Member m : _columns) fields.add(m.entityField);
+            _head = "INSERT INTO " + _tableName + "(" + String.join(",", fields) + ") VALUES ";
+            _headBytes = utf8Length(_head) + 1;
+        }
+
+        void add(String row) {
+            final int rowBytes = utf8Length(row);
+            if (_rows > 0 && (_rows >= _maxRows || _bytes + 1 + rowBytes > _maxBytes))
+                flush();
+            if (_rows == 0) {
+                _sb.append(_head);
+                _bytes = _headBytes;
+            } else {
+                _sb.append(',');
+                _bytes++;
+            }
+            _sb.append(row);
+            _bytes += rowBytes;
+            _rows++;
+        }
+
+        void flush() {
+            if (_rows == 0) return;
+            _consumer.accept(_sb.append(';').toString());
+            _sb.setLength(0);
+            _rows = 0;
+            _bytes = 0;
+        }
+
+        String row(Object obj) {
+            final var sb = new StringBuilder("(");
+            for (BindingPlan.Member m : _columns) {
+                if (sb.length() > 1) sb.append(',');
+                sb.append(valueOf(m, obj));
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    /**
+     * The columns of a class, a column annotated by several fields appears
+     * once at its first field, and takes the value of its last field, as
+     * makeSql does.
+     */
+    private static List<BindingPlan.Member> columns(BindingPlan plan) {
+        final var columns = new LinkedHashMap<String, BindingPlan.Member>();
+        for (BindingPlan.Member m : plan.entityMembers) {
+            columns.put(m.entityField, m);
+        }
+        return new ArrayList<>(columns.values());
+    }
+
+    private static String valueOf(BindingPlan.Member m, Object obj) {
+        var v = m.get(obj);
+        if (v == null) {
+            return "null";
+        } else if (m.shouldAddQuoteMark) {
+            var v_ = StringsHelper.mysqlStrAddTrans(v.toString());
+            return "\'" + v_ + "\'";
+        } else {
+            return v.toString().trim();
+        }
+    }
+
+    private static int utf8Length(String s) {
+        int n = 0;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                n++;
+            } else if (c < 0x800) {
+                n += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                n += 4;
+                i++;
+            } else {
+                n += 3;
+            }
+        }
+        return n;
+    }
+
     private String make(Map<String, String> parameters) {
         if (parameters.isEmpty()) return null;
         String fields = String.join(",", parameters.keySet());
@@ -0,0 +1,719 @@
+package name.sayid.sql;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A binary form of json documents, to be kept on disk and loaded again
+ * without parsing. The document is opened over a buffer, usually a mapped
+ * file, and the expressions are views over the buffer: a member or an
+ * element is found through the offset tables, only the visited values are
+ * decoded.
+ * <p>
+ * All numbers are little endian. The layout is:
+ * <pre>
+ *     header     magic "SJB2" | length | offset of root | offset of keys
+ *     values     every value is a tag byte and its content
+ *     keys       count | offsets (count + 1) | utf-8 bytes of the keys
+ * </pre>
+ * The values are:
+ * <pre>
+ *     OBJECT     tag | count | (key id, offset of value) * count
+ *                | (key id, offset of value) * count, sorted by key id
+ *     ARRAY      tag | count | (offset of value) * count
+ *     LONG       tag | 8 bytes
+ *     DOUBLE     tag | 8 bytes
+ *     TRUE, FALSE, NULL  tag
+ *     STRING     tag | length | utf-8 bytes of the decoded string
+ *     RAW        tag | length | utf-8 bytes of the native value as it is
+ * </pre>
+ * The members of an object are kept in the order of the source, and again
+ * in the order of their key ids, so a key is found by a binary search. A native
+ * value is written as a number, a literal or a decoded string only when
+ * the original text can be restored exactly, the others are written as
+ * they are, so the views show the same text as the expressions parsed by
+ * SimpleJSON.
+ * </p>
+ * <p>
+ * The views are JSONExpr, ArrayExp and NativeExp. They are immutable and
+ * can be shared between threads, the content of the buffer mustn't be
+ * changed while they are used.
+ * </p>
+ */
+public final class JSONBinary
+{
+    static final int MAGIC = 0x32424A53;   // "SJB2"
+    static final int HEADER = 16;
+
+    static final byte OBJECT = 1;
+    static final byte ARRAY  = 2;
+    static final byte LONG   = 3;
+    static final byte DOUBLE = 4;
+    static final byte TRUE   = 5;
+    static final byte FALSE  = 6;
+    static final byte NULL   = 7;
+    static final byte STRING = 8;
+    static final byte RAW    = 9;
+
+    private final ByteBuffer _buf;
+    private final String[] _keys;
+    private final Map<String, Integer> _keyIds;
+    private final int _root;
+
+    private JSONBinary(ByteBuffer buf) throws SimpleJSON.JSONFormatException
+    {
+        _buf = buf;
+        if (buf.limit() < HEADER || buf.getInt(0) != MAGIC)
+            throw new SimpleJSON.JSONFormatException(
+                "It isn't a binary json document.");
+        int length = buf.getInt(4);
+        _root = buf.getInt(8);
+        int keys = buf.getInt(12);
+        if (length > buf.limit() || _root < HEADER || keys < HEADER
+            || keys + 4 > length)
+            throw new SimpleJSON.JSONFormatException(
+                "The binary json document is truncated.");
+
+        int count = buf.getInt(keys);
+        int table = keys + 4;
+        int data = table + (count + 1) * 4;
+        _keys = new String[count];
+        _keyIds = new HashMap<>(count * 2);
+        byte[] b = new byte[64];
+        for (int i = 0; i < count; i++) {
+            int off = buf.getInt(table + i * 4);
+            int len = buf.getInt(table + i * 4 + 4) - off;
+            if (len > b.length) b = new byte[len];
+            read(data + off, b, len);
+            _keys[i] = new String(b, 0, len, StandardCharsets.UTF_8);
+            _keyIds.put(_keys[i], i);
+        }
+        if (buf.get(_root) != OBJECT)
+            throw new SimpleJSON.JSONFormatException(
+                "The root of the binary json document isn't an object.");
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Opening
+    //
+
+    /**
+     * Open a binary document in a buffer, from the position to the limit.
+     * The buffer is referenced by the views, its content mustn't be changed
+     * later.
+     * @param buf The binary document.
+     * @return The document.
+     * @throws SimpleJSON.JSONFormatException When the buffer isn't a binary
+     * json document.
+     */
+    public static JSONBinary wrap(ByteBuffer buf)
+        throws SimpleJSON.JSONFormatException
+    {
+        return new JSONBinary(buf.slice().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * Open a binary document file. The file is mapped into memory, the pages
+     * are read when they are visited. The file can't be larger than 2GB.
+     * @param path The file.
+     * @return The document.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the file isn't a binary
+     * json document.
+     */
+    public static JSONBinary open(Path path)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        try (var ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("The file is too large: " + path);
+            return wrap(ch.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * The root json expression, a view over the buffer.
+     * @return The root expression.
+     */
+    public SimpleJSON.JSONExpr root()
+    {
+        return new ObjectView(this, _root);
+    }
+
+    /**
+     * The document as a json object, its expressions are views over the
+     * buffer.
+     * @return The json object.
+     */
+    public SimpleJSON json()
+    {
+        return SimpleJSON.of(root());
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Encoding
+    //
+
+    /**
+     * Encode a json object.
+     * @param json The json object.
+     * @return A buffer contains the binary document, from 0 to its limit.
+     */
+    public static ByteBuffer encode(SimpleJSON json)
+    {
+        return encode(json.getJSON());
+    }
+
+    /**
+     * Encode a json expression as the root of a document.
+     * @param root The root expression.
+     * @return A buffer contains the binary document, from 0 to its limit.
+     */
+    public static ByteBuffer encode(SimpleJSON.JSONExpr root)
+    {
+        return new Encoder().encode(root);
+    }
+
+    /**
+     * Encode a json object and write it to a stream.
+     * @param json The json object.
+     * @param out The stream, it isn't closed.
+     * @throws IOException
+     */
+    public static void write(SimpleJSON json, OutputStream out)
+        throws IOException
+    {
+        ByteBuffer buf = encode(json);
+        out.write(buf.array(), buf.arrayOffset(), buf.limit());
+    }
+
+    /**
+     * Encode a json object and write it to a file, the file is replaced
+     * when it exists.
+     * @param json The json object.
+     * @param path The file.
+     * @throws IOException
+     */
+    public static void write(SimpleJSON json, Path path) throws IOException
+    {
+        try (var ch = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = encode(json);
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+    }
+
+    /**
+     * It writes the values after their members, so the offsets of the
+     * members are known when a container is written.
+     */
+    private static final class Encoder
+    {
+        private ByteBuffer _out = ByteBuffer.allocate(1024)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        private final Map<String, Integer> _keyIds = new HashMap<>();
+        private int[] _offsets = new int[64];
+        private int _top = 0;
+
+        ByteBuffer encode(SimpleJSON.JSONExpr root)
+        {
+            _out.position(HEADER);
+            int rootOffset = value(root);
+            int keys = _out.position();
+            writeKeys();
+            int length = _out.position();
+            _out.putInt(0, MAGIC).putInt(4, length)
+                .putInt(8, rootOffset).putInt(12, keys);
+            _out.flip();
+            return _out;
+        }
+
+        private void ensure(int n)
+        {
+            if (_out.remaining() >= n) return;
+            int cap = Math.max(_out.capacity() * 2, _out.position() + n);
+            if (cap < 0)
+                throw new IllegalStateException(
+                    "The document is too large for the binary form.");
+            var b = ByteBuffer.allocate(cap).order(ByteOrder.LITTLE_ENDIAN);
+            _out.flip();
+            b.put(_out);
+            _out = b;
+        }
+
+        private void push(int offset)
+        {
+            if (_top == _offsets.length)
+                _offsets = Arrays.copyOf(_offsets, _top * 2);
+            _offsets[_top++] = offset;
+        }
+
+        private int value(SimpleJSON.Expression e)
+        {
+            if (e instanceof SimpleJSON.JSONExpr) {
+                Map<String, SimpleJSON.Expression> members
+                    = ((SimpleJSON.JSONExpr) e).getMembers();
+                int base = _top;
+                for (Map.Entry<String, SimpleJSON.Expression> m
+                    : members.entrySet()) {
+                    push(keyId(m.getKey()));
+                    push(value(m.getValue()));
+                }
+                int count = (_top - base) / 2;
+                ensure(5 + count * 16);
+                int offset = _out.position();
+                _out.put(OBJECT).putInt(count);
+                for (int i = base; i < _top; i++) _out.putInt(_offsets[i]);
+                // The ids and the offsets aren't negative, a pair is sorted
+                // as a long by its id.
+                long[] sorted = new long[count];
+                for (int i = 0; i < count; i++) {
+                    sorted[i] = (long) _offsets[base + i * 2] << 32
+                        | _offsets[base + i * 2 + 1];
+                }
+                Arrays.sort(sorted);
+                for (long m : sorted) _out.putInt((int) (m >>> 32)).putInt((int) m);
+                _top = base;
+                return offset;
+            } else if (e instanceof SimpleJSON.ArrayExp) {
+                List<SimpleJSON.Expression> members
+                    = ((SimpleJSON.ArrayExp) e).getMembers();
+                int base = _top;
+                for (SimpleJSON.Expression m : members) push(value(m));
+                int count = _top - base;
+                ensure(5 + count * 4);
+                int offset = _out.position();
+                _out.put(ARRAY).putInt(count);
+                for (int i = base; i < _top; i++) _out.putInt(_offsets[i]);
+                _top = base;
+                return offset;
+            }
+            return nativeValue(e.toString());
+        }
+
+        private int nativeValue(String raw)
+        {
+            if (raw == null) raw = "null";
+            ensure(9);
+            int offset = _out.position();
+            var n = new SimpleJSON.NativeExp();
+            n.setContent(raw);
+            switch (n.getType()) {
+                case NULL:
+                    if (raw.equals("null")) {
+                        _out.put(NULL);
+                        return offset;
+                    }
+                    break;
+                case BOOLEAN:
+                    if (raw.equals("true") || raw.equals("false")) {
+                        _out.put(raw.charAt(0) == 't' ? TRUE : FALSE);
+                        return offset;
+                    }
+                    break;
+                case NUMBER:
+                    try {
+                        long v = n.asLong();
+                        if (Long.toString(v).equals(raw)) {
+                            _out.put(LONG).putLong(v);
+                            return offset;
+                        }
+                    } catch (NumberFormatException ex) {
+                        // not a long, try a double
+                    }
+                    try {
+                        double v = n.asDouble();
+                        if (Double.toString(v).equals(raw)) {
+                            _out.put(DOUBLE).putDouble(v);
+                            return offset;
+                        }
+                    } catch (NumberFormatException ex) {
+                        // written as it is
+                    }
+                    break;
+                case STRING:
+                    String s = n.asString();
+                    if (raw.charAt(0) == '"' && JSONWriter.quote(s).equals(raw))
+                        return bytes(STRING, s);
+                    break;
+                default:
+                    break;
+            }
+            return bytes(RAW, raw);
+        }
+
+        private int bytes(byte tag, String s)
+        {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            ensure(5 + b.length);
+            int offset = _out.position();
+            _out.put(tag).putInt(b.length).put(b);
+            return offset;
+        }
+
+        private int keyId(String key)
+        {
+            Integer id = _keyIds.get(key);
+            if (id == null) {
+                id = _keyIds.size();
+                _keyIds.put(key, id);
+            }
+            return id;
+        }
+
+        private void writeKeys()
+        {
+            var keys = new byte[_keyIds.size()][];
+            int total = 0;
+            for (Map.Entry<String, Integer> e : _keyIds.entrySet()) {
+                byte[] b = e.getKey().getBytes(StandardCharsets.UTF_8);
+                keys[e.getValue()] = b;
+                total += b.length;
+            }
+            ensure(4 + (keys.length + 1) * 4 + total);
+            _out.putInt(keys.length);
+            int off = 0;
+            for (byte[] b : keys) {
+                _out.putInt(off);
+                off += b.length;
+            }
+            _out.putInt(off);
+            for (byte[] b : keys) _out.put(b);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Reading
+    //
+
+    byte tag(int offset)
+    {
+        return _buf.get(offset);
+    }
+
+    int count(int offset)
+    {
+        return _buf.getInt(offset + 1);
+    }
+
+    private void read(int offset, byte[] b, int len)
+    {
+        if (_buf.hasArray()) {
+            System.arraycopy(_buf.array(), _buf.arrayOffset() + offset, b, 0, len);
+        } else {
+            _buf.duplicate().position(offset).get(b, 0, len);
+        }
+    }
+
+    String string(int offset)
+    {
+        int len = _buf.getInt(offset + 1);
+        if (_buf.hasArray())
+            return new String(_buf.array(), _buf.arrayOffset() + offset + 5,
+                len, StandardCharsets.UTF_8);
+        byte[] b = new byte[len];
+        read(offset + 5, b, len);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    SimpleJSON.Expression view(int offset)
+    {
+        switch (tag(offset)) {
+            case OBJECT:
+                return new ObjectView(this, offset);
+            case ARRAY:
+                return new ArrayView(this, offset);
+            default:
+                return new ValueView(this, offset);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Views
+    //
+
+    /**
+     * A json expression over a binary document. A key is found by its id in
+     * the key dictionary, and the id by a binary search in the sorted table
+     * of the object.
+     */
+    static final class ObjectView extends SimpleJSON.JSONExpr
+    {
+        private final JSONBinary _doc;
+        private final int _offset;
+
+        ObjectView(JSONBinary doc, int offset)
+        {
+            super(null);
+            _doc = doc;
+            _offset = offset;
+        }
+
+        @Override
+        public SimpleJSON.Expression valueOfKey(String key)
+        {
+            Integer id = _doc._keyIds.get(key);
+            if (id == null) return null;
+            final ByteBuffer b = _doc._buf;
+            int count = b.getInt(_offset + 1);
+            int sorted = _offset + 5 + count * 8;
+            int k = id;
+            int lo = 0, hi = count - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int p = sorted + mid * 8;
+                int m = b.getInt(p);
+                if (m < k) {
+                    lo = mid + 1;
+                } else if (m > k) {
+                    hi = mid - 1;
+                } else {
+                    return _doc.view(b.getInt(p + 4));
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Map<String, SimpleJSON.Expression> getMembers()
+        {
+            return new AbstractMap<>() {
+                @Override
+                public Set<Entry<String, SimpleJSON.Expression>> entrySet()
+                {
+                    return new AbstractSet<>() {
+                        @Override
+                        public Iterator<Entry<String, SimpleJSON.Expression>>
+                        iterator()
+                        {
+                            return new MemberIterator(_doc, _offset);
+                        }
+
+                        @Override
+                        public int size()
+                        {
+                            return _doc.count(_offset);
+                        }
+                    };
+                }
+
+                @Override
+                public SimpleJSON.Expression get(Object key)
+                {
+                    return key instanceof String ?
+                        valueOfKey((String) key) : null;
+                }
+
+                @Override
+                public boolean containsKey(Object key)
+                {
+                    return get(key) != null;
+                }
+            };
+        }
+
+        @Override
+        public Set<String> keys()
+        {
+            return getMembers().keySet();
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return _doc.count(_offset) == 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return JSONWriter.toString(this);
+        }
+    }
+
+    private static final class MemberIterator
+        implements Iterator<Map.Entry<String, SimpleJSON.Expression>>
+    {
+        private final JSONBinary _doc;
+        private final int _count;
+        private int _i = 0;
+        private int _p;
+
+        MemberIterator(JSONBinary doc, int offset)
+        {
+            _doc = doc;
+            _count = doc.count(offset);
+            _p = offset + 5;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return _i < _count;
+        }
+
+        @Override
+        public Map.Entry<String, SimpleJSON.Expression> next()
+        {
+            if (_i >= _count) throw new NoSuchElementException();
+            final ByteBuffer b = _doc._buf;
+            var e = new AbstractMap.SimpleImmutableEntry<>(
+                _doc._keys[b.getInt(_p)], _doc.view(b.getInt(_p + 4)));
+            _i++;
+            _p += 8;
+            return e;
+        }
+    }
+
+    /**
+     * An array expression over a binary document, an element is found by
+     * the offset table in O(1).
+     */
+    static final class ArrayView extends SimpleJSON.ArrayExp
+    {
+        private final JSONBinary _doc;
+        private final int _offset;
+
+        ArrayView(JSONBinary doc, int offset)
+        {
+            super(null);
+            _doc = doc;
+            _offset = offset;
+        }
+
+        @Override
+        public List<SimpleJSON.Expression> getMembers()
+        {
+            return new AbstractList<>() {
+                @Override
+                public SimpleJSON.Expression get(int index)
+                {
+                    if (index < 0 || index >= size())
+                        throw new IndexOutOfBoundsException("Index: " + index);
+                    return _doc.view(_doc._buf.getInt(_offset + 5 + index * 4));
+                }
+
+                @Override
+                public int size()
+                {
+                    return _doc.count(_offset);
+                }
+            };
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return _doc.count(_offset) == 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return JSONWriter.toString(this);
+        }
+    }
+
+    /**
+     * A native value over a binary document. The typed values are read
+     * directly, the text is made when it is asked for.
+     */
+    static final class ValueView extends SimpleJSON.NativeExp
+    {
+        private final JSONBinary _doc;
+        private final int _offset;
+
+        ValueView(JSONBinary doc, int offset)
+        {
+            _doc = doc;
+            _offset = offset;
+        }
+
+        @Override
+        public String toString()
+        {
+            return getValue();
+        }
+
+        @Override
+        public String getValue()
+        {
+            final ByteBuffer b = _doc._buf;
+            switch (b.get(_offset)) {
+                case LONG:   return Long.toString(b.getLong(_offset + 1));
+                case DOUBLE: return Double.toString(b.getDouble(_offset + 1));
+                case TRUE:   return "true";
+                case FALSE:  return "false";
+                case NULL:   return "null";
+                case STRING: return JSONWriter.quote(_doc.string(_offset));
+                default:     return _doc.string(_offset);
+            }
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return _doc._buf.get(_offset) == RAW && _doc.count(_offset) == 0;
+        }
+
+        @Override
+        public Type getType()
+        {
+            switch (_doc._buf.get(_offset)) {
+                case LONG:
+                case DOUBLE: return Type.NUMBER;
+                case TRUE:
+                case FALSE:  return Type.BOOLEAN;
+                case NULL:   return Type.NULL;
+                case STRING: return Type.STRING;
+                default:     return super.getType();
+            }
+        }
+
+        @Override
+        public long asLong()
+        {
+            if (_doc._buf.get(_offset) == LONG)
+                return _doc._buf.getLong(_offset + 1);
+            return super.asLong();
+        }
+
+        @Override
+        public double asDouble()
+        {
+            switch (_doc._buf.get(_offset)) {
+                case LONG:   return _doc._buf.getLong(_offset + 1);
+                case DOUBLE: return _doc._buf.getDouble(_offset + 1);
+                default:     return super.asDouble();
+            }
+        }
+
+        @Override
+        public String asString()
+        {
+            if (_doc._buf.get(_offset) == STRING) return _doc.string(_offset);
+            return super.asString();
+        }
+    }
+}
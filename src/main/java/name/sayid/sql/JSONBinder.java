@@ -0,0 +1,284 @@
+package name.sayid.sql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.*;
+
+/**
+ * A binder makes objects annotated by RespAnnotation directly from json
+ * text, while the text is parsed. It is same as parsing the text by
+ * SimpleJSON and making the object by ValueMaker4JSON, but no expression
+ * is built: the keys the class doesn't declare are skipped without being
+ * recognized, and the declared values are decoded from the source.
+ * <p>
+ *     The values are translated to the types of the fields, a field is an
+ *     annotated class is bound as a nested object. The members of a list
+ *     are bound as the item class of the field. A
+ *     member can't be bound is dropped with a warning, same as
+ *     ValueMaker4JSON. A binder can be shared by threads.
+ * </p>
+ * @param <T> The type of bound objects.
+ */
+public final class JSONBinder<T>
+{
+    private final static Logger L
+        = Logger.getLogger(JSONBinder.class.getName());
+
+    private final Class<T> _clazz;
+
+    /**
+     * Constructor.
+     * @param clazz The class of bound objects.
+     */
+    public JSONBinder(Class<T> clazz)
+    {
+        _clazz = clazz;
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Sources
+    //
+
+    /**
+     * Bind an object from a string.
+     * @param s The json text.
+     * @return The bound object.
+     * @throws SimpleJSON.JSONFormatException When the source isn't a json
+     * text.
+     * @throws ValueIllegal When the object can't be made.
+     */
+    public T bind(String s)
+        throws SimpleJSON.JSONFormatException, ValueIllegal
+    {
+        try {
+            return bind(new JSONReader(s));
+        } catch (IOException e) {
+            throw new SimpleJSON.JSONFormatException(e.getMessage());
+        }
+    }
+
+    /**
+     * Bind an object from a reader, the reader isn't closed.
+     * @param reader The source of json text.
+     * @return The bound object.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the source isn't a json
+     * text.
+     * @throws ValueIllegal When the object can't be made.
+     */
+    public T bind(Reader reader)
+        throws IOException, SimpleJSON.JSONFormatException, ValueIllegal
+    {
+        return bind(new JSONReader(reader));
+    }
+
+    /**
+     * Bind an object from an utf-8 encoded stream, the stream isn't
+     * closed.
+     * @param in The source of json text.
+     * @return The bound object.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the source isn't a json
+     * text.
+     * @throws ValueIllegal When the object can't be made.
+     */
+    public T bind(InputStream in)
+        throws IOException, SimpleJSON.JSONFormatException, ValueIllegal
+    {
+        return bind(new JSONReader(in));
+    }
+
+    /**
+     * Bind an object from utf-8 encoded bytes, from the position to the
+     * limit of the buffer.
+     * @param buf The source of json text.
+     * @return The bound object.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the source isn't a json
+     * text.
+     * @throws ValueIllegal When the object can't be made.
+     */
+    public T bind(ByteBuffer buf)
+        throws IOException, SimpleJSON.JSONFormatException, ValueIllegal
+    {
+        return bind(new JSONReader(buf));
+    }
+
+    /**
+     * Bind an object from a json reader, the whole document is read.
+     * @param reader The reader, it must not be moved yet.
+     * @return The bound object.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the source isn't a json
+     * text.
+     * @throws ValueIllegal When the object can't be made.
+     */
+    public T bind(JSONReader reader)
+        throws IOException, SimpleJSON.JSONFormatException, ValueIllegal
+    {
+        if (reader.nextToken() != JSONReader.Token.BEGIN_OBJECT)
+            throw new SimpleJSON.JSONFormatException(
+                "JSONValue mast start '{'");
+        T o = bindObject(reader, BindingPlan.of(_clazz));
+        reader.nextToken();
+        return o;
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Binding
+    //
+
+    /**
+     * Bind the object at cursor, the cursor is at '{'. After it the cursor
+     * is at the matched '}', even when ValueIllegal is thrown.
+     */
+    @SuppressWarnings("unchecked")
+    private <E> E bindObject(JSONReader r, BindingPlan plan)
+        throws IOException, SimpleJSON.JSONFormatException, ValueIllegal
+    {
+        E o;
+        try {
+            o = (E) plan.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            r.skipValue();
+            throw new ValueIllegal(e);
+        }
+
+        ValueIllegal error = null;
+        boolean[] found = new boolean[plan.members.size()];
+        JSONReader.Token token;
+        while ((token = r.nextToken()) != JSONReader.Token.END_OBJECT) {
+            BindingPlan.Member slot = plan.byRespField(r.currentKey());
+            if (slot == null || error != null || isEmpty(r, token)) {
+                r.skipValue();
+                continue;
+            }
+            try {
+                if (slot.isList) {
+                    Object v = bindList(r, token, slot);
+                    if (v == null) continue;
+                    slot.set(o, v);
+                } else if (slot.isNested) {
+                    slot.set(o, bindNested(r, token, slot));
+                } else {
+                    // A number or a boolean of a typed field is read from the
+                    // source, without its text.
+                    boolean isValue = token == JSONReader.Token.VALUE
+                        && r.getTokenizer().valueQuote() == 0;
+                    boolean isNull = isValue && r.isNull();
+                    if (isValue && !isNull && slot.isTyped()) {
+                        slot.setValue(o, r.getTokenizer());
+                    } else {
+                        slot.setText(o, text(r, token), isNull);
+                    }
+                }
+                found[slot.index] = true;
+            } catch (ValueIllegal e) {
+                error = e;
+            } catch (IllegalAccessException | IllegalArgumentException e) {
+                error = new ValueIllegal(e);
+            }
+        }
+        if (error != null) throw error;
+
+        for (BindingPlan.Member slot : plan.respMembers) {
+            if (!found[slot.index])
+                L.log(WARNING, "There isn't the "
+                    + (slot.isList ? "list" : "common") + " key: " + slot.respField);
+        }
+        return o;
+    }
+
+    /**
+     * Bind the nested object at cursor. After it the cursor is at the end
+     * of the value, even when ValueIllegal is thrown.
+     */
+    private Object bindNested(JSONReader r, JSONReader.Token token,
+                              BindingPlan.Member slot)
+        throws IOException, SimpleJSON.JSONFormatException, ValueIllegal
+    {
+        if (token != JSONReader.Token.BEGIN_OBJECT) {
+            r.skipValue();
+            throw new ValueIllegal("It should be a json object: "
+                + slot.respField);
+        }
+        return bindObject(r, BindingPlan.of(slot.field.getType()));
+    }
+
+    /**
+     * Bind the list at cursor. After it the cursor is at the end of the
+     * value, even when ValueIllegal is thrown.
+     * @return The list, null when all members are empty.
+     */
+    private List<Object> bindList(JSONReader r, JSONReader.Token token,
+                                  BindingPlan.Member slot)
+        throws IOException, SimpleJSON.JSONFormatException, ValueIllegal
+    {
+        if (token != JSONReader.Token.BEGIN_ARRAY) {
+            r.skipValue();
+            throw new ValueIllegal("It should be a List object," +
+                " but it isn't correct!");
+        }
+
+        BindingPlan plan = BindingPlan.of(slot.itemClass);
+        var list = new ArrayList<>();
+        int count = 0;
+        while ((token = r.nextToken()) != JSONReader.Token.END_ARRAY) {
+            if (isEmpty(r, token)) {
+                r.skipValue();
+                continue;
+            }
+            if (token != JSONReader.Token.BEGIN_OBJECT) {
+                r.skipValue();
+                while (r.nextToken() != JSONReader.Token.END_ARRAY)
+                    r.skipValue();
+                throw new ValueIllegal("The members should" +
+                    " must be a JSONExpr object");
+            }
+            count++;
+            try {
+                list.add(bindObject(r, plan));
+            } catch (ValueIllegal e) {
+                L.log(WARNING, e.getMessage());
+            }
+        }
+        return count == 0 ? null : list;
+    }
+
+    /**
+     * The text of the value at cursor, same as ValueMaker4JSON: a quoted
+     * string is decoded, the others are taken as they are.
+     */
+    private static String text(JSONReader r, JSONReader.Token token)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        if (token == JSONReader.Token.VALUE) {
+            if (r.getTokenizer().valueQuote() != 0) return r.readString();
+            return ValueMaker4JSON.removeQuoteMark(r.rawValue());
+        }
+        var sb = new StringBuilder();
+        new JSONWriter(sb).copy(r);
+        return ValueMaker4JSON.removeQuoteMark(sb.toString());
+    }
+
+    /**
+     * Whether the value at cursor is an empty expression, which is taken
+     * as absent, same as the values of a parsed tree.
+     */
+    private static boolean isEmpty(JSONReader r, JSONReader.Token token)
+        throws IOException
+    {
+        if (token == JSONReader.Token.VALUE)
+            return r.getTokenizer().valueLength() == 0;
+        int c = r.getTokenizer().peek();
+        return c == (token == JSONReader.Token.BEGIN_OBJECT ? '}' : ']');
+    }
+}
@@ -0,0 +1,267 @@
+package name.sayid.sql;
+
+import java.util.Arrays;
+
+/**
+ * A fluent builder assembles a tree of expressions in memory. It accepts
+ * the same events as JSONWriter (beginObject, key, value, endObject and so
+ * on), but the nodes are made directly, no text is written and parsed
+ * again.
+ * <p>
+ *     The tree is same as the one parsed from the text of the events: the
+ *     empty elements of arrays are dropped, and the last value wins when a
+ *     key is given more than once. Raw values are taken as they are, the
+ *     caller is responsible for their format.
+ * </p>
+ * <pre>
+ *     SimpleJSON json = new JSONBuilder()
+ *         .beginObject()
+ *             .key("name").string("sayid")
+ *             .key("tags").beginArray().string("a").string("b").endArray()
+ *         .endObject()
+ *         .buildJSON();
+ * </pre>
+ */
+public class JSONBuilder
+{
+    private SimpleJSON.Expression[] _stack = new SimpleJSON.Expression[16];
+    private String[] _keys = new String[16];
+    private int _depth = 0;
+    private String _key = null;
+    private SimpleJSON.Expression _root = null;
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Events
+    //
+
+    /**
+     * Add a value to the container began last, or make it the root.
+     */
+    private void add(SimpleJSON.Expression e)
+    {
+        if (_depth == 0) {
+            if (_root != null)
+                throw new IllegalStateException("The root is built already.");
+            _root = e;
+            return;
+        }
+        SimpleJSON.Expression parent = _stack[_depth - 1];
+        if (parent instanceof SimpleJSON.JSONExpr) {
+            if (_key == null)
+                throw new IllegalStateException(
+                    "A key is expected before the value of a member.");
+            ((SimpleJSON.JSONExpr) parent).put(_key, e);
+            _key = null;
+        } else if (!e.isEmpty()) {
+            ((SimpleJSON.ArrayExp) parent).members.add(e);
+        }
+    }
+
+    private void open(SimpleJSON.Expression e)
+    {
+        if (_depth == 0 && _root != null)
+            throw new IllegalStateException("The root is built already.");
+        if (_depth > 0 && _stack[_depth - 1] instanceof SimpleJSON.JSONExpr
+            && _key == null)
+            throw new IllegalStateException(
+                "A key is expected before the value of a member.");
+        if (_depth == _stack.length) {
+            _stack = Arrays.copyOf(_stack, _depth * 2);
+            _keys = Arrays.copyOf(_keys, _depth * 2);
+        }
+        _keys[_depth] = _key;
+        _stack[_depth++] = e;
+        _key = null;
+    }
+
+    private SimpleJSON.Expression close(char c)
+    {
+        if (_depth == 0 || _key != null)
+            throw new IllegalStateException(
+                "There isn't an opened container to be closed by " + c);
+        SimpleJSON.Expression e = _stack[--_depth];
+        _stack[_depth] = null;
+        _key = _keys[_depth];
+        _keys[_depth] = null;
+        return e;
+    }
+
+    /**
+     * Begin a json expression.
+     * @return The object is this-self.
+     */
+    public JSONBuilder beginObject()
+    {
+        open(new SimpleJSON.JSONExpr());
+        return this;
+    }
+
+    /**
+     * End the json expression began last.
+     * @return The object is this-self.
+     */
+    public JSONBuilder endObject()
+    {
+        SimpleJSON.Expression e = close('}');
+        if (!(e instanceof SimpleJSON.JSONExpr))
+            throw new IllegalStateException("The last began isn't an object.");
+        ((SimpleJSON.JSONExpr) e).trimToSize();
+        add(e);
+        return this;
+    }
+
+    /**
+     * Begin an array expression.
+     * @return The object is this-self.
+     */
+    public JSONBuilder beginArray()
+    {
+        open(new SimpleJSON.ArrayExp());
+        return this;
+    }
+
+    /**
+     * End the array expression began last.
+     * @return The object is this-self.
+     */
+    public JSONBuilder endArray()
+    {
+        SimpleJSON.Expression e = close(']');
+        if (!(e instanceof SimpleJSON.ArrayExp))
+            throw new IllegalStateException("The last began isn't an array.");
+        ((SimpleJSON.ArrayExp) e).members.trimToSize();
+        add(e);
+        return this;
+    }
+
+    /**
+     * Give the key of a member, the value must be given next.
+     * @param key The key.
+     * @return The object is this-self.
+     */
+    public JSONBuilder key(String key)
+    {
+        if (_depth == 0 || !(_stack[_depth - 1] instanceof SimpleJSON.JSONExpr))
+            throw new IllegalStateException("A key is given out of an object.");
+        if (_key != null)
+            throw new IllegalStateException(
+                "The value of the previous key isn't given.");
+        _key = key;
+        return this;
+    }
+
+    /**
+     * Give a native value as it is, the caller is responsible for its
+     * format, a string must be quoted and escaped already.
+     * @param raw The raw value, null is taken as a null literal.
+     * @return The object is this-self.
+     */
+    public JSONBuilder value(String raw)
+    {
+        var e = new SimpleJSON.NativeExp();
+        e.setContent(raw == null ? "null" : raw.strip());
+        add(e);
+        return this;
+    }
+
+    /**
+     * Give a string value, it is quoted by '"' and escaped.
+     * @param s The string, null is taken as a null literal.
+     * @return The object is this-self.
+     */
+    public JSONBuilder string(String s)
+    {
+        return value(s == null ? null : JSONWriter.quote(s));
+    }
+
+    /**
+     * Give a long number.
+     * @param v The number.
+     * @return The object is this-self.
+     */
+    public JSONBuilder value(long v)
+    {
+        return value(Long.toString(v));
+    }
+
+    /**
+     * Give a double number.
+     * @param v The number, it must be finite.
+     * @return The object is this-self.
+     */
+    public JSONBuilder value(double v)
+    {
+        if (Double.isNaN(v) || Double.isInfinite(v))
+            throw new IllegalArgumentException(
+                "The number can't be written to json: " + v);
+        return value(Double.toString(v));
+    }
+
+    /**
+     * Give a boolean literal.
+     * @param v The boolean value.
+     * @return The object is this-self.
+     */
+    public JSONBuilder value(boolean v)
+    {
+        return value(v ? "true" : "false");
+    }
+
+    /**
+     * Give a null literal.
+     * @return The object is this-self.
+     */
+    public JSONBuilder nullValue()
+    {
+        return value((String) null);
+    }
+
+    /**
+     * Give an expression built already, it is put into the tree as it is,
+     * not copied.
+     * @param e The expression.
+     * @return The object is this-self.
+     */
+    public JSONBuilder value(SimpleJSON.Expression e)
+    {
+        if (e == null) return nullValue();
+        add(e);
+        return this;
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Results
+    //
+
+    /**
+     * The built expression.
+     * @return The root expression.
+     * @throws IllegalStateException When a container isn't ended yet or
+     * nothing is built.
+     */
+    public SimpleJSON.Expression build()
+    {
+        if (_depth > 0)
+            throw new IllegalStateException(
+                _depth + " containers aren't ended yet.");
+        if (_root == null)
+            throw new IllegalStateException("Nothing is built.");
+        return _root;
+    }
+
+    /**
+     * The built json object.
+     * @return The json object.
+     * @throws IllegalStateException When the root isn't a json expression.
+     */
+    public SimpleJSON buildJSON()
+    {
+        SimpleJSON.Expression e = build();
+        if (!(e instanceof SimpleJSON.JSONExpr))
+            throw new IllegalStateException(
+                "The root isn't a json expression.");
+        return SimpleJSON.of((SimpleJSON.JSONExpr) e);
+    }
+}
@@ -0,0 +1,579 @@
+package name.sayid.sql;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A tokenizer works on utf-8 bytes directly. All structural characters of
+ * json are ascii, and every byte of a multi-byte utf-8 sequence is out of
+ * ascii, so the structure is recognized on bytes without decoding. Keys
+ * are decoded when they are scanned; values are decoded only when the
+ * caller asks for them by rawValue or valueString, and numbers are parsed
+ * from the bytes. The native expressions made over a buffer keep their
+ * ranges and are decoded at the first access, so the buffer must not be
+ * changed while they are used.
+ * <p>
+ *     The source is a byte buffer, or a file mapped into memory. A file is
+ *     mapped by windows, so it can be larger than a single buffer.
+ * </p>
+ */
+public class JSONByteTokenizer extends JSONTokenizer
+{
+    /** The default size of a mapped window of a file. */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    private ByteBuffer _buf;
+    private ByteBuffer _view;
+    private ByteBuffer _words;
+    private int  _pos;
+    private int  _limit;
+    private long _base;
+
+    private final FileChannel _channel;
+    private final long _size;
+    private int _window;
+
+    private int _mark = -1;
+    private int _keyStart = 0;
+    private int _keyLen = 0;
+    private int _valueLen = 0;
+    private int _valueQuote = 0;
+    private boolean _valueEscaped = false;
+    private byte[] _scratch = new byte[64];
+
+    /**
+     * Constructor, the tokenizer reads the remaining bytes of a buffer. The
+     * position of the buffer isn't changed. The positions reported by the
+     * tokenizer are the indexes in the buffer.
+     * @param buf The utf-8 encoded json text.
+     */
+    public JSONByteTokenizer(ByteBuffer buf)
+    {
+        _buf = buf;
+        _view = buf.duplicate();
+        _words = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        _pos = buf.position();
+        _limit = buf.limit();
+        _base = 0;
+        _channel = null;
+        _size = 0;
+    }
+
+    private JSONByteTokenizer(FileChannel channel, int window)
+        throws IOException
+    {
+        _channel = channel;
+        _size = channel.size();
+        _window = window;
+        _base = 0;
+        _pos = 0;
+        map(0, (int) Math.min(window, _size));
+    }
+
+    /**
+     * Open a file and map it into memory for tokenizing. The file is closed
+     * when the tokenizer is closed.
+     * @param path The path of the utf-8 encoded json file.
+     * @return The tokenizer.
+     * @throws IOException
+     */
+    public static JSONByteTokenizer map(Path path) throws IOException
+    {
+        return map(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Open a file and map it into memory by windows of the given size.
+     * @param path The path of the utf-8 encoded json file.
+     * @param window The size of a mapped window in bytes.
+     * @return The tokenizer.
+     * @throws IOException
+     */
+    public static JSONByteTokenizer map(Path path, int window)
+        throws IOException
+    {
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new JSONByteTokenizer(channel, window);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void map(long base, int len) throws IOException
+    {
+        _buf = _channel.map(FileChannel.MapMode.READ_ONLY, base, len);
+        _view = _buf.duplicate();
+        _words = _buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        _base = base;
+        _limit = len;
+    }
+
+    /**
+     * Map the next window of the file. The bytes from the mark (or from
+     * current position when there isn't a mark) are kept in the window.
+     * @return False when the source is exhausted.
+     * @throws IOException
+     */
+    private boolean fill() throws IOException
+    {
+        if (_channel == null) return false;
+        int keep = _mark >= 0 ? _mark : _pos;
+        long base = _base + keep;
+        if (_base + _limit >= _size) return false;
+
+        int kept = _limit - keep;
+        long len = Math.min(Math.max(_window, (long) kept * 2), _size - base);
+        if (len > Integer.MAX_VALUE)
+            throw new IOException(
+                "A single value is too large to be mapped.");
+        map(base, (int) len);
+        _pos -= keep;
+        if (_mark >= 0) _mark = 0;
+        return true;
+    }
+
+    @Override
+    public int peek() throws IOException
+    {
+        for (;;) {
+            final ByteBuffer buf = _buf;
+            final int limit = _limit;
+            final ByteBuffer words = _words;
+            int p = _pos;
+            while (p < limit) {
+                int c = buf.get(p) & 0xff;
+                if (classOf(c) != BLANK) {
+                    _pos = p;
+                    return c;
+                }
+                p = skipBlanks(words, p + 1, limit);
+            }
+            _pos = p;
+            if (!fill()) return -1;
+        }
+    }
+
+    @Override
+    public void consume()
+    {
+        _pos++;
+    }
+
+    @Override
+    public void scanKeyRange()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        int q = peek();
+        if (q != '"' && q != '\'')
+            throw new SimpleJSON.JSONFormatException(
+                "JSON Key mast start with \" or \' at " + position());
+
+        _pos++;
+        _mark = _pos;
+        final long quotes = WordScanner.broadcast(q);
+        for (;;) {
+            final ByteBuffer buf = _buf;
+            final ByteBuffer words = _words;
+            final int limit = _limit;
+            int p = _pos;
+            while (p < limit) {
+                if (p + 8 <= limit) {
+                    long m = WordScanner.matches(words.getLong(p), quotes);
+                    if (m == 0) {
+                        p += 8;
+                        continue;
+                    }
+                    p += WordScanner.first(m);
+                }
+                if (buf.get(p) == q) {
+                    int start = _mark;
+                    _pos = p + 1;
+                    _mark = -1;
+                    if (p == start)
+                        throw new SimpleJSON.JSONFormatException(
+                            "The key is empty.");
+                    _keyStart = start;
+                    _keyLen = p - start;
+                    return;
+                }
+                p++;
+            }
+            _pos = p;
+            if (!fill())
+                throw new SimpleJSON.JSONFormatException(
+                    "The key is unterminated.");
+        }
+    }
+
+    @Override
+    public void scanValue()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        int c = peek();
+        if (c < 0)
+            throw new SimpleJSON.JSONFormatException(
+                "Native expression is unterminate.");
+
+        _mark = _pos;
+        _valueEscaped = false;
+        if (classOf(c) == QUOTE) {
+            _valueQuote = c;
+            _pos++;
+            scanQuoted((byte) c);
+            _valueLen = _pos - _mark;
+            int n = peek();
+            if (n < 0 || classOf(n) != END)
+                throw new SimpleJSON.JSONFormatException(
+                    "JSonExpresion has illigual character at " + position());
+        } else {
+            _valueQuote = 0;
+            scanBare();
+            _valueLen = _pos - _mark;
+        }
+    }
+
+    private void scanQuoted(byte q)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        boolean escape = false;
+        final long quotes = WordScanner.broadcast(q);
+        for (;;) {
+            final ByteBuffer buf = _buf;
+            final ByteBuffer words = _words;
+            final int limit = _limit;
+            int p = _pos;
+            while (p < limit) {
+                if (!escape) {
+                    p = skipPlain(words, p, limit, quotes);
+                    if (p == limit) break;
+                }
+                byte c = buf.get(p++);
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                    _valueEscaped = true;
+                } else if (c == q) {
+                    _pos = p;
+                    return;
+                }
+            }
+            _pos = p;
+            if (!fill())
+                throw new SimpleJSON.JSONFormatException(
+                    "Native expression is unterminate.");
+        }
+    }
+
+    /**
+     * Skip blank characters a word at a time.
+     * @return The index of the first byte isn't blank, or the index of the
+     * remaining bytes shorter than a word.
+     */
+    private static int skipBlanks(ByteBuffer words, int p, int limit)
+    {
+        while (p + 8 <= limit) {
+            long m = WordScanner.nonBlanks(words.getLong(p));
+            if (m != 0) return p + WordScanner.first(m);
+            p += 8;
+        }
+        return p;
+    }
+
+    /**
+     * Skip the bytes in a quoted value a word at a time, until a quote mark
+     * or a '\\'.
+     * @return The index of the first quote mark or '\\', or the index of the
+     * remaining bytes shorter than a word.
+     */
+    private static int skipPlain(ByteBuffer words, int p, int limit, long quotes)
+    {
+        while (p + 8 <= limit) {
+            long w = words.getLong(p);
+            long m = WordScanner.matches(w, quotes)
+                | WordScanner.matches(w, WordScanner.BACKSLASHES);
+            if (m != 0) return p + WordScanner.first(m);
+            p += 8;
+        }
+        return p;
+    }
+
+    private void scanBare()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        for (;;) {
+            final ByteBuffer buf = _buf;
+            final int limit = _limit;
+            int p = _pos;
+            while (p < limit) {
+                switch (classOf(buf.get(p) & 0xff)) {
+                    case END:
+                        _pos = p;
+                        return;
+                    case BEGIN:
+                        _pos = p;
+                        throw new SimpleJSON.JSONFormatException(
+                            "JSonExpresion has illigual character at "
+                                + position());
+                    default:
+                        p++;
+                }
+            }
+            _pos = p;
+            if (!fill())
+                throw new SimpleJSON.JSONFormatException(
+                    "Native expression is unterminate.");
+        }
+    }
+
+    @Override
+    public void skipRest(int depth)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        _mark = -1;
+        byte quote = 0;
+        long quotes = 0;
+        boolean escape = false;
+        boolean open = true;
+        for (;;) {
+            final ByteBuffer buf = _buf;
+            final ByteBuffer words = _words;
+            final int limit = _limit;
+            int p = _pos;
+            while (p < limit) {
+                if (quote != 0 && !escape) {
+                    p = skipPlain(words, p, limit, quotes);
+                    if (p == limit) break;
+                }
+                byte c = buf.get(p++);
+                if (quote != 0) {
+                    if (escape) escape = false;
+                    else if (c == '\\') escape = true;
+                    else if (c == quote) quote = 0;
+                    continue;
+                }
+                switch (c) {
+                    case '"':
+                    case '\'':
+                        if (open) {
+                            quote = c;
+                            quotes = WordScanner.broadcast(c);
+                        }
+                        open = false;
+                        break;
+                    case '{':
+                    case '[':
+                    case ',':
+                    case ':':
+                        if (c == '{' || c == '[') depth++;
+                        open = true;
+                        break;
+                    case '}':
+                    case ']':
+                        if (--depth == 0) {
+                            _pos = p;
+                            return;
+                        }
+                        open = false;
+                        break;
+                    default:
+                        if (isBlank(c & 0xff)) p = skipBlanks(words, p, limit);
+                        else open = false;
+                }
+            }
+            _pos = p;
+            if (!fill())
+                throw new SimpleJSON.JSONFormatException(
+                    "The expression is unterminate.");
+        }
+    }
+
+    @Override
+    public long position()
+    {
+        return _base + _pos;
+    }
+
+    @Override
+    public JSONTokenizer fork(long start, long end)
+    {
+        if (_channel != null) return super.fork(start, end);
+        ByteBuffer buf = _buf.duplicate();
+        buf.limit((int) end).position((int) start);
+        return new JSONByteTokenizer(buf);
+    }
+
+    @Override
+    public boolean canFork()
+    {
+        return _channel == null;
+    }
+
+    /**
+     * The values of a mapped file are copied, the file may be changed after
+     * it is parsed.
+     */
+    @Override
+    SimpleJSON.NativeExp nativeValue()
+    {
+        if (_channel != null) return super.nativeValue();
+        return new ValueView(_buf, _mark, _mark + _valueLen);
+    }
+
+    /**
+     * Decode a range of the buffer as utf-8.
+     */
+    private String decode(int start, int end)
+    {
+        int len = end - start;
+        if (_buf.hasArray())
+            return new String(_buf.array(), _buf.arrayOffset() + start, len,
+                StandardCharsets.UTF_8);
+        if (_scratch.length < len)
+            _scratch = new byte[Math.max(len, _scratch.length * 2)];
+        _view.limit(end).position(start);
+        _view.get(_scratch, 0, len);
+        return new String(_scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long keyStart()
+    {
+        return _base + _keyStart;
+    }
+
+    @Override
+    public int keyLength()
+    {
+        return _keyLen;
+    }
+
+    @Override
+    protected String keyString()
+    {
+        return decode(_keyStart, _keyStart + _keyLen);
+    }
+
+    @Override
+    protected int keyCharAt(int index)
+    {
+        byte b = _buf.get(_keyStart + index);
+        return b < 0 ? -1 : b;
+    }
+
+    @Override
+    public long valueStart()
+    {
+        return _base + _mark;
+    }
+
+    @Override
+    public boolean isValueEscaped()
+    {
+        return _valueEscaped;
+    }
+
+    @Override
+    public String rawValue()
+    {
+        return decode(_mark, _mark + _valueLen);
+    }
+
+    @Override
+    public String valueString()
+    {
+        int start = _mark;
+        int end = _mark + _valueLen;
+        if (_valueQuote != 0) {
+            String s = decode(start + 1, end - 1);
+            return _valueEscaped ?
+                JSONCharTokenizer.unescape(s.toCharArray(), 0, s.length()) : s;
+        }
+        while (start < end && isBlank(_buf.get(start))) start++;
+        while (end > start && isBlank(_buf.get(end - 1))) end--;
+        return decode(start, end);
+    }
+
+    @Override
+    public int valueLength()
+    {
+        return _valueLen;
+    }
+
+    @Override
+    protected int valueCharAt(int index)
+    {
+        return _buf.get(_mark + index) & 0xff;
+    }
+
+    @Override
+    public int valueQuote()
+    {
+        return _valueQuote;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (_channel != null) _channel.close();
+    }
+
+    /**
+     * A native value over a range of a buffer, the text is decoded at the
+     * first access.
+     */
+    static final class ValueView extends SimpleJSON.NativeExp
+    {
+        private final ByteBuffer _buf;
+        private final int _start;
+        private final int _end;
+        private String _text = null;
+
+        ValueView(ByteBuffer buf, int start, int end)
+        {
+            _buf = buf;
+            _start = start;
+            _end = end;
+        }
+
+        @Override
+        public String toString()
+        {
+            return getValue();
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return _end == _start;
+        }
+
+        @Override
+        public String getValue()
+        {
+            String s = _text;
+            if (s == null) {
+                int len = _end - _start;
+                if (_buf.hasArray()) {
+                    s = new String(_buf.array(), _buf.arrayOffset() + _start,
+                        len, StandardCharsets.UTF_8);
+                } else {
+                    byte[] b = new byte[len];
+                    ByteBuffer view = _buf.duplicate();
+                    view.limit(_end).position(_start);
+                    view.get(b);
+                    s = new String(b, StandardCharsets.UTF_8);
+                }
+                _text = s;
+            }
+            return s;
+        }
+    }
+}
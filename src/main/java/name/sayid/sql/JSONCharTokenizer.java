@@ -0,0 +1,483 @@
+package name.sayid.sql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A tokenizer reads characters through a fixed size buffer. The source can
+ * be a reader, an input stream (decoded as utf-8) or a range of a string.
+ * The buffer is refilled when it is exhausted, so a large document never
+ * needs to be kept in memory wholly. Only when a single key or value is
+ * larger than the buffer, the buffer grows to contain it.
+ */
+public class JSONCharTokenizer extends JSONTokenizer
+{
+    /** The default buffer size in characters. */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader _reader;
+    private final String _string;
+    private int _stringPos;
+    private final int _stringEnd;
+
+    private char[] _buf;
+    private int _pos = 0;
+    private int _limit = 0;
+    private long _base = 0;
+
+    private int _mark = -1;
+    private int _keyStart = 0;
+    private int _keyLen = 0;
+    private int _valueLen = 0;
+    private char _valueQuote = 0;
+    private boolean _valueEscaped = false;
+
+    /**
+     * Constructor, the tokenizer reads from a reader with the default
+     * buffer size.
+     * @param reader The source of json text.
+     */
+    public JSONCharTokenizer(Reader reader)
+    {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor, the tokenizer reads from a reader.
+     * @param reader The source of json text.
+     * @param bufferSize The buffer size in characters.
+     */
+    public JSONCharTokenizer(Reader reader, int bufferSize)
+    {
+        if (bufferSize < 16)
+            throw new IllegalArgumentException(
+                "The buffer size is too small: " + bufferSize);
+        _reader = reader;
+        _string = null;
+        _stringEnd = 0;
+        _buf = new char[bufferSize];
+    }
+
+    /**
+     * Constructor, the tokenizer reads from an input stream, the bytes are
+     * decoded as utf-8.
+     * @param in The source of json text.
+     */
+    public JSONCharTokenizer(InputStream in)
+    {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Constructor, the tokenizer reads from a string.
+     * @param s The source of json text.
+     */
+    public JSONCharTokenizer(String s)
+    {
+        this(s, 0, s.length());
+    }
+
+    /**
+     * Constructor, the tokenizer reads a range of a string. The positions
+     * reported by the tokenizer are the indexes in the string.
+     * @param s The source of json text.
+     * @param start The first index of the range.
+     * @param end The index after the last character of the range.
+     */
+    public JSONCharTokenizer(String s, int start, int end)
+    {
+        _reader = null;
+        _string = s;
+        _stringPos = start;
+        _stringEnd = end;
+        _base = start;
+        _buf = new char[Math.max(16, Math.min(DEFAULT_BUFFER_SIZE, end - start))];
+    }
+
+    /**
+     * Read more characters into buffer. The characters before the mark (or
+     * before current position when there isn't a mark) are discarded.
+     * @return False when the source is exhausted.
+     * @throws IOException
+     */
+    private boolean fill() throws IOException
+    {
+        int keep = _mark >= 0 ? _mark : _pos;
+        if (keep > 0) {
+            System.arraycopy(_buf, keep, _buf, 0, _limit - keep);
+            _base += keep;
+            _limit -= keep;
+            _pos -= keep;
+            if (_mark >= 0) _mark = 0;
+        }
+        if (_limit == _buf.length) {
+            char[] buf = new char[_buf.length * 2];
+            System.arraycopy(_buf, 0, buf, 0, _limit);
+            _buf = buf;
+        }
+
+        int n;
+        if (_reader != null) {
+            n = _reader.read(_buf, _limit, _buf.length - _limit);
+        } else {
+            n = Math.min(_stringEnd - _stringPos, _buf.length - _limit);
+            if (n > 0) {
+                _string.getChars(_stringPos, _stringPos + n, _buf, _limit);
+                _stringPos += n;
+            } else {
+                n = -1;
+            }
+        }
+        if (n <= 0) return false;
+        _limit += n;
+        return true;
+    }
+
+    @Override
+    public int peek() throws IOException
+    {
+        for (;;) {
+            final char[] buf = _buf;
+            final int limit = _limit;
+            int p = _pos;
+            while (p < limit) {
+                char c = buf[p];
+                if (classOf(c) != BLANK) {
+                    _pos = p;
+                    return c;
+                }
+                p++;
+            }
+            _pos = p;
+            if (!fill()) return -1;
+        }
+    }
+
+    @Override
+    public void consume()
+    {
+        _pos++;
+    }
+
+    @Override
+    public void scanKeyRange()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        int q = peek();
+        if (q != '"' && q != '\'')
+            throw new SimpleJSON.JSONFormatException(
+                "JSON Key mast start with \" or \' at " + position());
+
+        _pos++;
+        _mark = _pos;
+        for (;;) {
+            final char[] buf = _buf;
+            final int limit = _limit;
+            int p = _pos;
+            while (p < limit) {
+                if (buf[p] == q) {
+                    int start = _mark;
+                    _pos = p + 1;
+                    _mark = -1;
+                    if (p == start)
+                        throw new SimpleJSON.JSONFormatException(
+                            "The key is empty.");
+                    _keyStart = start;
+                    _keyLen = p - start;
+                    return;
+                }
+                p++;
+            }
+            _pos = p;
+            if (!fill())
+                throw new SimpleJSON.JSONFormatException(
+                    "The key is unterminated.");
+        }
+    }
+
+    @Override
+    public void scanValue()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        int c = peek();
+        if (c < 0)
+            throw new SimpleJSON.JSONFormatException(
+                "Native expression is unterminate.");
+
+        _mark = _pos;
+        _valueEscaped = false;
+        if (classOf(c) == QUOTE) {
+            _valueQuote = (char) c;
+            _pos++;
+            scanQuoted((char) c);
+            _valueLen = _pos - _mark;
+            int n = peek();
+            if (n < 0 || classOf(n) != END)
+                throw new SimpleJSON.JSONFormatException(
+                    "JSonExpresion has illigual character at " + position());
+        } else {
+            _valueQuote = 0;
+            scanBare();
+            _valueLen = _pos - _mark;
+        }
+    }
+
+    private void scanQuoted(char q)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        boolean escape = false;
+        for (;;) {
+            final char[] buf = _buf;
+            final int limit = _limit;
+            int p = _pos;
+            while (p < limit) {
+                char c = buf[p++];
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                    _valueEscaped = true;
+                } else if (c == q) {
+                    _pos = p;
+                    return;
+                }
+            }
+            _pos = p;
+            if (!fill())
+                throw new SimpleJSON.JSONFormatException(
+                    "Native expression is unterminate.");
+        }
+    }
+
+    private void scanBare()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        for (;;) {
+            final char[] buf = _buf;
+            final int limit = _limit;
+            int p = _pos;
+            while (p < limit) {
+                switch (classOf(buf[p])) {
+                    case END:
+                        _pos = p;
+                        return;
+                    case BEGIN:
+                        _pos = p;
+                        throw new SimpleJSON.JSONFormatException(
+                            "JSonExpresion has illigual character at "
+                                + position());
+                    default:
+                        p++;
+                }
+            }
+            _pos = p;
+            if (!fill())
+                throw new SimpleJSON.JSONFormatException(
+                    "Native expression is unterminate.");
+        }
+    }
+
+    @Override
+    public void skipRest(int depth)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        _mark = -1;
+        char quote = 0;
+        boolean escape = false;
+        boolean open = true;
+        for (;;) {
+            final char[] buf = _buf;
+            final int limit = _limit;
+            int p = _pos;
+            while (p < limit) {
+                char c = buf[p++];
+                if (quote != 0) {
+                    if (escape) escape = false;
+                    else if (c == '\\') escape = true;
+                    else if (c == quote) quote = 0;
+                    continue;
+                }
+                switch (c) {
+                    case '"':
+                    case '\'':
+                        if (open) quote = c;
+                        open = false;
+                        break;
+                    case '{':
+                    case '[':
+                    case ',':
+                    case ':':
+                        if (c == '{' || c == '[') depth++;
+                        open = true;
+                        break;
+                    case '}':
+                    case ']':
+                        if (--depth == 0) {
+                            _pos = p;
+                            return;
+                        }
+                        open = false;
+                        break;
+                    default:
+                        if (!isBlank(c)) open = false;
+                }
+            }
+            _pos = p;
+            if (!fill())
+                throw new SimpleJSON.JSONFormatException(
+                    "The expression is unterminate.");
+        }
+    }
+
+    @Override
+    public long position()
+    {
+        return _base + _pos;
+    }
+
+    @Override
+    public JSONTokenizer fork(long start, long end)
+    {
+        if (_string == null) return super.fork(start, end);
+        return new JSONCharTokenizer(_string, (int) start, (int) end);
+    }
+
+    @Override
+    public boolean canFork()
+    {
+        return _string != null;
+    }
+
+    @Override
+    public long keyStart()
+    {
+        return _base + _keyStart;
+    }
+
+    @Override
+    public int keyLength()
+    {
+        return _keyLen;
+    }
+
+    @Override
+    protected String keyString()
+    {
+        return new String(_buf, _keyStart, _keyLen);
+    }
+
+    @Override
+    protected int keyCharAt(int index)
+    {
+        return _buf[_keyStart + index];
+    }
+
+    @Override
+    public long valueStart()
+    {
+        return _base + _mark;
+    }
+
+    @Override
+    public boolean isValueEscaped()
+    {
+        return _valueEscaped;
+    }
+
+    @Override
+    public String rawValue()
+    {
+        return new String(_buf, _mark, _valueLen);
+    }
+
+    @Override
+    public String valueString()
+    {
+        int start = _mark;
+        int end = _mark + _valueLen;
+        if (_valueQuote != 0) {
+            start++;
+            end--;
+            return _valueEscaped ? unescape(_buf, start, end)
+                : new String(_buf, start, end - start);
+        }
+        while (start < end && isBlank(_buf[start])) start++;
+        while (end > start && isBlank(_buf[end - 1])) end--;
+        return new String(_buf, start, end - start);
+    }
+
+    @Override
+    public int valueLength()
+    {
+        return _valueLen;
+    }
+
+    @Override
+    protected int valueCharAt(int index)
+    {
+        return _buf[_mark + index];
+    }
+
+    @Override
+    public int valueQuote()
+    {
+        return _valueQuote;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (_reader != null) _reader.close();
+    }
+
+    /**
+     * Translate the escapes in a range of characters. The rule is same as
+     * StringsHelper.unescapeJava.
+     * @param buf The characters.
+     * @param start The first index of the range.
+     * @param end The index after the last character of the range.
+     * @return The translated string.
+     */
+    static String unescape(char[] buf, int start, int end)
+    {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = buf[i];
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (++i == end) {
+                sb.append('\\');
+                break;
+            }
+            c = buf[i];
+            switch (c) {
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (i + 4 < end) {
+                        int u = 0;
+                        for (int k = 1; k <= 4; k++)
+                            u = (u << 4) | Character.digit(buf[i + k], 16);
+                        if (u >= 0) {
+                            sb.append((char) u);
+                            i += 4;
+                            break;
+                        }
+                    }
+                    sb.append(c);
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package name.sayid.sql;
+
+import java.util.Arrays;
+
+/**
+ * A bounded table of interned keys. The keys of json documents from the
+ * same source repeat again and again, so a tokenizer looks a scanned key
+ * up in the table before making a string of it. The key is compared with
+ * the candidate in place, a string is made only when the key is missed.
+ * Documents parsed with the same table share the instances of their keys.
+ * <p>
+ *     The table is a fixed array of slots addressed by the hash of keys, a
+ *     missed key replaces the key in its slot, so the table never grows.
+ *     Threads share the table without locking: a slot holds an immutable
+ *     string, a racing reader sees either the old or the new one, both are
+ *     correct answers.
+ * </p>
+ */
+public final class JSONKeyTable
+{
+    /** The default count of slots. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** Longer keys aren't interned, they are unlikely to repeat. */
+    static final int MAX_KEY_LENGTH = 64;
+
+    private static final JSONKeyTable SHARED = new JSONKeyTable(DEFAULT_CAPACITY);
+
+    private final String[] _slots;
+    private final int _mask;
+
+    /**
+     * Constructor.
+     * @param capacity The count of slots, it is rounded up to a power of 2.
+     */
+    public JSONKeyTable(int capacity)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException(
+                "The capacity must be positive: " + capacity);
+        int len = Integer.highestOneBit(Math.max(capacity * 2 - 1, 1));
+        _slots = new String[len];
+        _mask = len - 1;
+    }
+
+    /**
+     * The table shared by all tokenizers by default.
+     * @return The shared table.
+     */
+    public static JSONKeyTable shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * Find the last scanned key of a tokenizer.
+     * @param t The tokenizer, scanKeyRange is called already.
+     * @return The interned key, or a new string when the key can't be
+     * interned.
+     */
+    String intern(JSONTokenizer t)
+    {
+        int len = t.keyLength();
+        if (len > MAX_KEY_LENGTH) return t.keyString();
+
+        int h = 0;
+        for (int i = 0; i < len; i++) {
+            int c = t.keyCharAt(i);
+            if (c < 0) return t.keyString();
+            h = 31 * h + c;
+        }
+
+        int slot = (h ^ (h >>> 16)) & _mask;
+        String s = _slots[slot];
+        if (s != null && s.length() == len && s.hashCode() == h
+            && matches(t, s, len)) {
+            return s;
+        }
+        s = t.keyString();
+        _slots[slot] = s;
+        return s;
+    }
+
+    private static boolean matches(JSONTokenizer t, String s, int len)
+    {
+        for (int i = 0; i < len; i++) {
+            if (t.keyCharAt(i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Empty the table.
+     */
+    public void clear()
+    {
+        Arrays.fill(_slots, null);
+    }
+}
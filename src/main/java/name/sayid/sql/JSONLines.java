@@ -0,0 +1,503 @@
+package name.sayid.sql;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import static java.util.logging.Level.*;
+
+/**
+ * A parser of newline delimited json (json lines), every non-blank line is a
+ * json object. The source is split into chunks at line boundaries, and the
+ * chunks are parsed in parallel on a fork-join pool. A file is mapped into
+ * memory chunk by chunk, so it can be larger than a single buffer.
+ * <p>
+ *     Only a limited number of chunks are in flight at the same time, a
+ *     slow consumer doesn't make the whole file kept in memory. The results
+ *     are delivered in the order of lines by default, or as soon as a chunk
+ *     is parsed when the order isn't required.
+ * </p>
+ * <pre>
+ *     try (var lines = JSONLines.open(path).ordered(false)) {
+ *         lines.forEach(json -&gt; ...);
+ *     }
+ * </pre>
+ */
+public final class JSONLines implements Closeable
+{
+    private final static Logger L =
+        Logger.getLogger(JSONLines.class.getName());
+
+    /** The default size of a chunk in bytes. */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 23;
+
+    private static final int PROBE_SIZE = 1 << 12;
+
+    /**
+     * A line can't be parsed. It is reported when the malformed lines are
+     * skipped.
+     */
+    public static final class Malformed
+    {
+        private final long _offset;
+        private final String _line;
+        private final SimpleJSON.JSONFormatException _error;
+
+        Malformed(long offset, String line, SimpleJSON.JSONFormatException error)
+        {
+            _offset = offset;
+            _line = line;
+            _error = error;
+        }
+
+        /**
+         * @return The offset of the line in bytes from the beginning of the
+         * source.
+         */
+        public long offset()
+        {
+            return _offset;
+        }
+
+        /**
+         * @return The text of the line.
+         */
+        public String line()
+        {
+            return _line;
+        }
+
+        /**
+         * @return The error of parsing.
+         */
+        public SimpleJSON.JSONFormatException error()
+        {
+            return _error;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Malformed line at " + _offset + ": " + _error.getMessage();
+        }
+    }
+
+    private final ByteBuffer _buf;
+    private final FileChannel _channel;
+    private final long _size;
+
+    private int _chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean _ordered = true;
+    private Consumer<Malformed> _reporter = null;
+    private ForkJoinPool _pool = ForkJoinPool.commonPool();
+
+    /**
+     * Constructor, the lines are the remaining bytes of a buffer. The
+     * position of the buffer isn't changed.
+     * @param buf The utf-8 encoded json lines.
+     */
+    public JSONLines(ByteBuffer buf)
+    {
+        _buf = buf;
+        _channel = null;
+        _size = buf.limit();
+    }
+
+    private JSONLines(FileChannel channel) throws IOException
+    {
+        _buf = null;
+        _channel = channel;
+        _size = channel.size();
+    }
+
+    /**
+     * Open a file of json lines. The file is closed when this object is
+     * closed.
+     * @param path The path of the utf-8 encoded file.
+     * @return The parser.
+     * @throws IOException
+     */
+    public static JSONLines open(Path path) throws IOException
+    {
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new JSONLines(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Set the size of chunks. A chunk is extended to the end of its last
+     * line, so a chunk may be larger than it.
+     * @param bytes The size in bytes.
+     * @return The object is this-self.
+     */
+    public JSONLines chunkSize(int bytes)
+    {
+        if (bytes <= 0)
+            throw new IllegalArgumentException(
+                "The chunk size must be positive: " + bytes);
+        _chunkSize = bytes;
+        return this;
+    }
+
+    /**
+     * Whether the results are delivered in the order of lines, default is
+     * true.
+     * @param ordered False when the order isn't required.
+     * @return The object is this-self.
+     */
+    public JSONLines ordered(boolean ordered)
+    {
+        _ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Skip the malformed lines instead of aborting. The skipped lines are
+     * reported to the reporter in the thread consumes the results.
+     * @param reporter It receives the malformed lines, null means aborting
+     *                 at the first malformed line (default).
+     * @return The object is this-self.
+     */
+    public JSONLines skipMalformed(Consumer<Malformed> reporter)
+    {
+        _reporter = reporter;
+        return this;
+    }
+
+    /**
+     * Skip the malformed lines, every skipped line is logged as a warning.
+     * @return The object is this-self.
+     */
+    public JSONLines skipMalformed()
+    {
+        return skipMalformed(m -> L.log(WARNING, m.toString()));
+    }
+
+    /**
+     * Set the pool parses the chunks, default is the common pool.
+     * @param pool The pool.
+     * @return The object is this-self.
+     */
+    public JSONLines pool(ForkJoinPool pool)
+    {
+        _pool = pool;
+        return this;
+    }
+
+    /**
+     * Parse all lines and deliver the results to an action in the calling
+     * thread.
+     * @param action It receives the json objects.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When a line is malformed and
+     * the malformed lines aren't skipped.
+     */
+    public void forEach(Consumer<SimpleJSON> action)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        var chunks = new ChunkIterator(chunks());
+        try {
+            while (chunks.hasNext()) {
+                for (SimpleJSON json : chunks.nextChecked()) action.accept(json);
+            }
+        } finally {
+            chunks.cancel();
+        }
+    }
+
+    /**
+     * Parse all lines as a stream. The lines are parsed in the pool, the
+     * stream itself is sequential. A malformed line is thrown as an
+     * IllegalStateException caused by the JSONFormatException, and an
+     * error of reading is thrown as an UncheckedIOException.
+     * @return The stream of json objects, close it to stop the parsing
+     * when the stream isn't consumed completely.
+     * @throws IOException
+     */
+    public Stream<SimpleJSON> stream() throws IOException
+    {
+        var chunks = new ChunkIterator(chunks());
+        var it = Spliterators.spliteratorUnknownSize(chunks,
+            _ordered ? Spliterator.ORDERED | Spliterator.NONNULL
+                : Spliterator.NONNULL);
+        return StreamSupport.stream(it, false)
+            .onClose(chunks::cancel)
+            .flatMap(List::stream);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (_channel != null) _channel.close();
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Chunks
+    //
+
+    /**
+     * Split the source at line boundaries, every chunk is stored as its
+     * start and end offsets.
+     */
+    private long[] chunks() throws IOException
+    {
+        long start = _buf != null ? _buf.position() : 0;
+        var bounds = new ArrayList<Long>();
+        bounds.add(start);
+        while (start < _size) {
+            long end = start + _chunkSize >= _size ? _size
+                : lineEnd(start + _chunkSize);
+            bounds.add(end);
+            start = end;
+        }
+        long[] a = new long[bounds.size()];
+        for (int i = 0; i < a.length; i++) a[i] = bounds.get(i);
+        return a;
+    }
+
+    /**
+     * Find the offset after the first '\n' from an offset.
+     */
+    private long lineEnd(long from) throws IOException
+    {
+        if (_buf != null) {
+            for (int p = (int) from; p < _size; p++) {
+                if (_buf.get(p) == '\n') return p + 1;
+            }
+            return _size;
+        }
+
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        for (long p = from; p < _size; ) {
+            probe.clear();
+            int n = _channel.read(probe, p);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return p + i + 1;
+            }
+            p += n;
+        }
+        return _size;
+    }
+
+    private ByteBuffer slice(long start, long end) throws IOException
+    {
+        if (end - start > Integer.MAX_VALUE)
+            throw new IOException("A line is too large to be mapped at " + start);
+        if (_buf != null) {
+            ByteBuffer b = _buf.duplicate();
+            b.limit((int) end).position((int) start);
+            return b.slice();
+        }
+        return _channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    /**
+     * The result of a chunk.
+     */
+    private static final class Parsed
+    {
+        final List<SimpleJSON> jsons;
+        final List<Malformed> malformed;
+        final Exception error;
+
+        Parsed(List<SimpleJSON> jsons, List<Malformed> malformed)
+        {
+            this.jsons = jsons;
+            this.malformed = malformed;
+            this.error = null;
+        }
+
+        Parsed(Exception error)
+        {
+            this.jsons = null;
+            this.malformed = null;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Parse a chunk, the error is kept in the result, so it isn't wrapped
+     * by the pool.
+     */
+    private Parsed parseChunk(long start, long end)
+    {
+        try {
+            return parse(start, end);
+        } catch (IOException | SimpleJSON.JSONFormatException e) {
+            return new Parsed(e);
+        }
+    }
+
+    /**
+     * Parse the lines of a chunk, it runs in the pool.
+     */
+    private Parsed parse(long start, long end)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        ByteBuffer chunk = slice(start, end);
+        int limit = chunk.limit();
+        var jsons = new ArrayList<SimpleJSON>();
+        List<Malformed> malformed = Collections.emptyList();
+        int p = 0;
+        while (p < limit) {
+            int e = p;
+            while (e < limit && chunk.get(e) != '\n') e++;
+            if (!isBlank(chunk, p, e)) {
+                ByteBuffer line = chunk.duplicate();
+                line.limit(e).position(p);
+                try {
+                    jsons.add(SimpleJSON.parser(line));
+                } catch (SimpleJSON.JSONFormatException ex) {
+                    if (_reporter == null)
+                        throw new SimpleJSON.JSONFormatException(
+                            "Malformed line at " + (start + p) + ": "
+                                + ex.getMessage());
+                    if (malformed.isEmpty()) malformed = new ArrayList<>();
+                    malformed.add(new Malformed(start + p,
+                        StandardCharsets.UTF_8.decode(line.position(p)).toString(),
+                        ex));
+                }
+            }
+            p = e + 1;
+        }
+        jsons.trimToSize();
+        return new Parsed(jsons, malformed);
+    }
+
+    private static boolean isBlank(ByteBuffer buf, int start, int end)
+    {
+        for (int i = start; i < end; i++) {
+            if (!JSONTokenizer.isBlank(buf.get(i) & 0xff)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * It submits the chunks to the pool and takes the results. At most
+     * twice of the parallelism chunks are in flight.
+     */
+    private final class ChunkIterator implements Iterator<List<SimpleJSON>>
+    {
+        private final long[] _bounds;
+        private final int _window;
+        private final ArrayDeque<Future<Parsed>> _inFlight = new ArrayDeque<>();
+        private final ExecutorCompletionService<Parsed> _completion;
+        private int _submitted = 0;
+        private int _taken = 0;
+
+        ChunkIterator(long[] bounds)
+        {
+            _bounds = bounds;
+            _window = Math.max(2, _pool.getParallelism() * 2);
+            _completion = _ordered ? null : new ExecutorCompletionService<>(_pool);
+            fillWindow();
+        }
+
+        private int count()
+        {
+            return _bounds.length - 1;
+        }
+
+        private void fillWindow()
+        {
+            while (_submitted < count() && _submitted - _taken < _window) {
+                final long start = _bounds[_submitted];
+                final long end = _bounds[_submitted + 1];
+                _submitted++;
+                if (_completion != null) {
+                    _inFlight.add(_completion.submit(() -> parseChunk(start, end)));
+                } else {
+                    _inFlight.add(_pool.submit(() -> parseChunk(start, end)));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return _taken < count();
+        }
+
+        List<SimpleJSON> nextChecked()
+            throws IOException, SimpleJSON.JSONFormatException
+        {
+            if (!hasNext()) throw new NoSuchElementException();
+            Future<Parsed> f;
+            Parsed parsed;
+            try {
+                if (_completion != null) {
+                    f = _completion.take();
+                    _inFlight.remove(f);
+                } else {
+                    f = _inFlight.poll();
+                }
+                parsed = f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Parsing json lines is interrupted.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalStateException(cause);
+            } catch (CancellationException e) {
+                throw new IOException("Parsing json lines is cancelled.", e);
+            }
+            if (parsed.error instanceof SimpleJSON.JSONFormatException)
+                throw (SimpleJSON.JSONFormatException) parsed.error;
+            if (parsed.error != null) throw (IOException) parsed.error;
+            _taken++;
+            fillWindow();
+            for (Malformed m : parsed.malformed) _reporter.accept(m);
+            return parsed.jsons;
+        }
+
+        @Override
+        public List<SimpleJSON> next()
+        {
+            try {
+                return nextChecked();
+            } catch (IOException e) {
+                cancel();
+                throw new UncheckedIOException(e);
+            } catch (SimpleJSON.JSONFormatException e) {
+                cancel();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void cancel()
+        {
+            _submitted = count();
+            for (Future<Parsed> f : _inFlight) f.cancel(false);
+            _inFlight.clear();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package name.sayid.sql;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of parsed json documents, keyed by a 128 bits hash of the text.
+ * Sources send the same documents again and again, a document found in the
+ * cache isn't parsed again. The text itself isn't kept, two texts are
+ * taken as the same when their lengths and hashes are equal.
+ * <p>
+ *     The cache is bounded by the count of entries and by the estimated
+ *     bytes of the parsed trees, the least recently used entries are evicted
+ *     first. A document is estimated as {@value #BYTES_PER_CHAR} bytes per
+ *     character of its text, a document larger than the whole budget isn't
+ *     cached.
+ * </p>
+ * <p>
+ *     The cached trees are shared by every caller, they must not be changed.
+ *     The cache can be shared by threads; a document missed by several
+ *     threads at the same time may be parsed more than once.
+ * </p>
+ */
+public final class JSONParseCache
+{
+    /** The estimated bytes of a parsed tree for a character of the text. */
+    static final int BYTES_PER_CHAR = 4;
+
+    private static final long P1 = 0x9E3779B97F4A7C15L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+
+    /**
+     * The key of an entry, the length and the hashes of the text.
+     */
+    private static final class Key
+    {
+        final long h1;
+        final long h2;
+        final int length;
+
+        Key(long h1, long h2, int length)
+        {
+            this.h1 = h1;
+            this.h2 = h2;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return h1 == k.h1 && h2 == k.h2 && length == k.length;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (int) h1;
+        }
+    }
+
+    private static final class Entry
+    {
+        final SimpleJSON json;
+        final long weight;
+
+        Entry(SimpleJSON json, long weight)
+        {
+            this.json = json;
+            this.weight = weight;
+        }
+    }
+
+    private final int _maxEntries;
+    private final long _maxBytes;
+    private final LinkedHashMap<Key, Entry> _map
+        = new LinkedHashMap<>(64, 0.75f, true);
+    private long _bytes = 0;
+
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     * @param maxEntries The most count of cached documents.
+     * @param maxBytes The most estimated bytes of cached documents.
+     */
+    public JSONParseCache(int maxEntries, long maxBytes)
+    {
+        if (maxEntries <= 0 || maxBytes <= 0)
+            throw new IllegalArgumentException(
+                "The bounds must be positive: " + maxEntries + ", " + maxBytes);
+        _maxEntries = maxEntries;
+        _maxBytes = maxBytes;
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Parsing
+    //
+
+    /**
+     * Parse a string, or take the parsed document from the cache.
+     * @param s The json text.
+     * @return The json object, it must not be changed.
+     * @throws SimpleJSON.JSONFormatException When the text isn't a json
+     * text, a failed text isn't cached.
+     */
+    public SimpleJSON parse(String s)
+        throws SimpleJSON.JSONFormatException
+    {
+        Key key = hash(s);
+        SimpleJSON json = get(key);
+        if (json != null) return json;
+        json = SimpleJSON.parser(s);
+        put(key, json, (long) s.length() * BYTES_PER_CHAR);
+        return json;
+    }
+
+    /**
+     * Parse the remaining utf-8 bytes of a buffer, or take the parsed
+     * document from the cache. The position of the buffer isn't changed.
+     * @param buf The json text.
+     * @return The json object, it must not be changed.
+     * @throws SimpleJSON.JSONFormatException When the text isn't a json
+     * text, a failed text isn't cached.
+     */
+    public SimpleJSON parse(ByteBuffer buf)
+        throws SimpleJSON.JSONFormatException
+    {
+        Key key = hash(buf);
+        SimpleJSON json = get(key);
+        if (json != null) return json;
+        // The tree keeps the range of its values, so it is parsed on a copy
+        // the caller can't change.
+        byte[] copy = new byte[buf.remaining()];
+        buf.duplicate().get(copy);
+        json = SimpleJSON.parser(ByteBuffer.wrap(copy));
+        put(key, json, (long) buf.remaining() * BYTES_PER_CHAR);
+        return json;
+    }
+
+    /**
+     * Parse utf-8 bytes, or take the parsed document from the cache.
+     * @param bytes The json text.
+     * @return The json object, it must not be changed.
+     * @throws SimpleJSON.JSONFormatException When the text isn't a json
+     * text, a failed text isn't cached.
+     */
+    public SimpleJSON parse(byte[] bytes)
+        throws SimpleJSON.JSONFormatException
+    {
+        return parse(ByteBuffer.wrap(bytes));
+    }
+
+    private synchronized SimpleJSON get(Key key)
+    {
+        Entry e = _map.get(key);
+        if (e == null) {
+            _misses.increment();
+            return null;
+        }
+        _hits.increment();
+        return e.json;
+    }
+
+    private synchronized void put(Key key, SimpleJSON json, long weight)
+    {
+        if (weight > _maxBytes) return;
+        Entry old = _map.put(key, new Entry(json, weight));
+        if (old != null) _bytes -= old.weight;
+        _bytes += weight;
+
+        Iterator<Map.Entry<Key, Entry>> it = _map.entrySet().iterator();
+        while ((_map.size() > _maxEntries || _bytes > _maxBytes) && it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue;
+            _bytes -= eldest.getValue().weight;
+            it.remove();
+            _evictions.increment();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Hashing
+    //
+
+    private static long mix(long h)
+    {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Two independent 64 bits hashes of the characters, four characters
+     * are taken as a word.
+     */
+    static Key hash(String s)
+    {
+        int len = s.length();
+        long h1 = P3 ^ len, h2 = P1 ^ ~(long) len;
+        int i = 0;
+        for (; i + 4 <= len; i += 4) {
+            long w = (long) s.charAt(i) | (long) s.charAt(i + 1) << 16
+                | (long) s.charAt(i + 2) << 32 | (long) s.charAt(i + 3) << 48;
+            h1 = Long.rotateLeft(h1 ^ w * P1, 31) * P2;
+            h2 = Long.rotateLeft(h2 + w * P2, 27) * P3 + h1;
+        }
+        long w = 0;
+        for (int k = 0; i < len; i++, k += 16) w |= (long) s.charAt(i) << k;
+        h1 = Long.rotateLeft(h1 ^ w * P1, 31) * P2;
+        h2 = Long.rotateLeft(h2 + w * P2, 27) * P3 + h1;
+        return new Key(mix(h1), mix(h2 ^ h1), len);
+    }
+
+    /**
+     * Two independent 64 bits hashes of the remaining bytes, eight bytes
+     * are taken as a word.
+     */
+    static Key hash(ByteBuffer buf)
+    {
+        ByteBuffer b = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int len = b.remaining();
+        long h1 = P3 ^ len, h2 = P1 ^ ~(long) len;
+        int i = b.position(), end = b.limit();
+        for (; i + 8 <= end; i += 8) {
+            long w = b.getLong(i);
+            h1 = Long.rotateLeft(h1 ^ w * P1, 31) * P2;
+            h2 = Long.rotateLeft(h2 + w * P2, 27) * P3 + h1;
+        }
+        long w = 0;
+        for (int k = 0; i < end; i++, k += 8) w |= (b.get(i) & 0xFFL) << k;
+        h1 = Long.rotateLeft(h1 ^ w * P1, 31) * P2;
+        h2 = Long.rotateLeft(h2 + w * P2, 27) * P3 + h1;
+        return new Key(mix(h1), mix(h2 ^ h1), len);
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Statistics
+    //
+
+    /**
+     * How many times a document is found in the cache.
+     * @return The count of hits.
+     */
+    public long hitCount()
+    {
+        return _hits.sum();
+    }
+
+    /**
+     * How many times a document isn't found in the cache.
+     * @return The count of misses.
+     */
+    public long missCount()
+    {
+        return _misses.sum();
+    }
+
+    /**
+     * How many documents are evicted for the bounds.
+     * @return The count of evictions.
+     */
+    public long evictionCount()
+    {
+        return _evictions.sum();
+    }
+
+    /**
+     * The count of cached documents.
+     * @return The count of entries.
+     */
+    public synchronized int size()
+    {
+        return _map.size();
+    }
+
+    /**
+     * The estimated bytes of cached documents.
+     * @return The estimated bytes.
+     */
+    public synchronized long estimatedBytes()
+    {
+        return _bytes;
+    }
+
+    /**
+     * Remove all documents, the counters are kept.
+     */
+    public synchronized void clear()
+    {
+        _map.clear();
+        _bytes = 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "JSONParseCache[size=" + size() + ", bytes=" + estimatedBytes()
+            + ", hits=" + hitCount() + ", misses=" + missCount()
+            + ", evictions=" + evictionCount() + "]";
+    }
+}
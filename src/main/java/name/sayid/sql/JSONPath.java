@@ -0,0 +1,400 @@
+package name.sayid.sql;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A compiled path expression selects values from json. A path is compiled
+ * once and evaluated many times, against a tree of expressions or against
+ * a JSONReader without building the tree. The syntax is a subset of
+ * JSONPath:
+ * <pre>
+ *     $                 the root
+ *     .key  ['key']     a member of a json expression
+ *     .*    [*]         all members of a json expression or an array
+ *     [2]   [-1]        an element of an array, negative counts from end
+ *     [1:5] [::2]       a slice of an array, same as python
+ * </pre>
+ * The indexes are same as the lists of ArrayExp, that is the empty
+ * elements aren't counted.
+ * <p>
+ *     Compiled paths are cached, so compile can be called on a hot path.
+ *     A path is immutable and can be shared by threads.
+ * </p>
+ */
+public final class JSONPath
+{
+    private static final int CACHE_SIZE = 1024;
+    private static final Map<String, JSONPath> CACHE = new ConcurrentHashMap<>();
+
+    private static final int KEY = 0;
+    private static final int WILDCARD = 1;
+    private static final int INDEX = 2;
+    private static final int SLICE = 3;
+
+    /**
+     * A step of the path.
+     */
+    private static final class Step
+    {
+        final int kind;
+        final String key;
+        final int start;
+        final int end;
+        final int step;
+        final boolean hasStart;
+        final boolean hasEnd;
+
+        Step(int kind, String key, int start, int end, int step,
+             boolean hasStart, boolean hasEnd)
+        {
+            this.kind = kind;
+            this.key = key;
+            this.start = start;
+            this.end = end;
+            this.step = step;
+            this.hasStart = hasStart;
+            this.hasEnd = hasEnd;
+        }
+
+        /**
+         * Whether the array length is needed to find the elements.
+         */
+        boolean needsLength()
+        {
+            if (kind == INDEX) return start < 0;
+            if (kind == SLICE)
+                return (hasStart && start < 0) || (hasEnd && end < 0);
+            return false;
+        }
+
+        /**
+         * Whether an element is selected, when the length isn't needed.
+         */
+        boolean selects(int index)
+        {
+            if (kind == WILDCARD) return true;
+            if (kind == INDEX) return index == start;
+            int from = hasStart ? start : 0;
+            if (index < from || (hasEnd && index >= end)) return false;
+            return (index - from) % step == 0;
+        }
+    }
+
+    private final String _path;
+    private final Step[] _steps;
+
+    private JSONPath(String path, Step[] steps)
+    {
+        _path = path;
+        _steps = steps;
+    }
+
+    /**
+     * Compile a path, the compiled path is taken from the cache when it is
+     * compiled before.
+     * @param path The path expression.
+     * @return The compiled path.
+     * @throws IllegalArgumentException When the path is illegal.
+     */
+    public static JSONPath compile(String path)
+    {
+        JSONPath p = CACHE.get(path);
+        if (p != null) return p;
+        p = new JSONPath(path, parse(path));
+        // A full cache drops one path for a new one, so the paths in use
+        // mostly stay compiled when there are more than its size.
+        if (CACHE.size() >= CACHE_SIZE) {
+            var it = CACHE.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        CACHE.put(path, p);
+        return p;
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Compiling
+    //
+
+    private static Step[] parse(String path)
+    {
+        int len = path.length();
+        if (len == 0 || path.charAt(0) != '$')
+            throw illegal(path, 0, "a path must start with '$'");
+
+        var steps = new ArrayList<Step>();
+        int i = 1;
+        while (i < len) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                i++;
+                if (i < len && path.charAt(i) == '*') {
+                    steps.add(new Step(WILDCARD, null, 0, 0, 1, false, false));
+                    i++;
+                    continue;
+                }
+                int start = i;
+                while (i < len && path.charAt(i) != '.' && path.charAt(i) != '[')
+                    i++;
+                if (i == start) throw illegal(path, i, "a key is expected");
+                steps.add(key(path.substring(start, i)));
+            } else if (c == '[') {
+                int close = path.indexOf(']', i);
+                if (close < 0) throw illegal(path, i, "']' is expected");
+                String in = path.substring(i + 1, close).trim();
+                if (in.length() >= 2 && (in.charAt(0) == '\'' || in.charAt(0) == '"')
+                    && in.charAt(in.length() - 1) == in.charAt(0)) {
+                    if (in.length() == 2) throw illegal(path, i, "the key is empty");
+                    steps.add(key(in.substring(1, in.length() - 1)));
+                } else if (in.equals("*")) {
+                    steps.add(new Step(WILDCARD, null, 0, 0, 1, false, false));
+                } else {
+                    steps.add(index(path, i, in));
+                }
+                i = close + 1;
+            } else {
+                throw illegal(path, i, "'.' or '[' is expected");
+            }
+        }
+        return steps.toArray(new Step[0]);
+    }
+
+    private static Step key(String key)
+    {
+        return new Step(KEY, key, 0, 0, 1, false, false);
+    }
+
+    private static Step index(String path, int at, String in)
+    {
+        try {
+            int colon = in.indexOf(':');
+            if (colon < 0)
+                return new Step(INDEX, null, Integer.parseInt(in), 0, 1, true, false);
+
+            String[] parts = in.split(":", -1);
+            if (parts.length > 3) throw illegal(path, at, "too many ':'");
+            String s = parts[0].trim();
+            String e = parts[1].trim();
+            String st = parts.length == 3 ? parts[2].trim() : "";
+            int step = st.isEmpty() ? 1 : Integer.parseInt(st);
+            if (step <= 0) throw illegal(path, at, "the step must be positive");
+            return new Step(SLICE, null,
+                s.isEmpty() ? 0 : Integer.parseInt(s),
+                e.isEmpty() ? 0 : Integer.parseInt(e),
+                step, !s.isEmpty(), !e.isEmpty());
+        } catch (NumberFormatException ex) {
+            throw illegal(path, at, "an index is expected");
+        }
+    }
+
+    private static IllegalArgumentException illegal(String path, int at, String why)
+    {
+        return new IllegalArgumentException(
+            "Illegal path at " + at + ", " + why + ": " + path);
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Trees
+    //
+
+    /**
+     * Select values from a json object.
+     * @param json The json object.
+     * @return The selected values in the document order.
+     */
+    public List<SimpleJSON.Expression> select(SimpleJSON json)
+    {
+        return select(json.getJSON());
+    }
+
+    /**
+     * Select values from an expression, the expression is the root '$'.
+     * @param root The root expression.
+     * @return The selected values in the document order.
+     */
+    public List<SimpleJSON.Expression> select(SimpleJSON.Expression root)
+    {
+        var out = new ArrayList<SimpleJSON.Expression>();
+        select(root, 0, out::add);
+        return out;
+    }
+
+    /**
+     * Select the first value from an expression.
+     * @param root The root expression.
+     * @return The first selected value, null when nothing is selected.
+     */
+    public SimpleJSON.Expression first(SimpleJSON.Expression root)
+    {
+        List<SimpleJSON.Expression> l = select(root);
+        return l.isEmpty() ? null : l.get(0);
+    }
+
+    private void select(SimpleJSON.Expression e, int i,
+                        Consumer<SimpleJSON.Expression> out)
+    {
+        if (i == _steps.length) {
+            out.accept(e);
+            return;
+        }
+
+        Step step = _steps[i];
+        if (e instanceof SimpleJSON.JSONExpr) {
+            var json = (SimpleJSON.JSONExpr) e;
+            if (step.kind == KEY) {
+                SimpleJSON.Expression v = json.valueOfKey(step.key);
+                if (v != null) select(v, i + 1, out);
+            } else if (step.kind == WILDCARD) {
+                for (SimpleJSON.Expression v : json.getMembers().values())
+                    select(v, i + 1, out);
+            }
+        } else if (e instanceof SimpleJSON.ArrayExp && step.kind != KEY) {
+            List<SimpleJSON.Expression> members
+                = ((SimpleJSON.ArrayExp) e).getMembers();
+            int size = members.size();
+            if (step.kind == INDEX) {
+                int k = step.start < 0 ? size + step.start : step.start;
+                if (k >= 0 && k < size) select(members.get(k), i + 1, out);
+                return;
+            }
+            int from = 0, to = size;
+            if (step.kind == SLICE) {
+                from = clamp(step.hasStart ? step.start : 0, size);
+                to = clamp(step.hasEnd ? step.end : size, size);
+            }
+            for (int k = from; k < to; k += step.step)
+                select(members.get(k), i + 1, out);
+        }
+    }
+
+    private static int clamp(int index, int size)
+    {
+        if (index < 0) index += size;
+        return Math.max(0, Math.min(index, size));
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Streams
+    //
+
+    /**
+     * Select values from a reader without building the whole tree. Only
+     * the selected values are built, the others are skipped. A step needs
+     * the length of an array (a negative index or slice bound) builds
+     * that array. When a key appears more than once, only its last value
+     * is selected, at the place of its first one, as the expressions built
+     * by SimpleJSON; so the values selected in the members of an object are
+     * delivered when the end of the object is read.
+     * @param reader The reader, it must not be moved yet.
+     * @param action It receives the selected values in the document order.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the source isn't a json
+     * text.
+     */
+    public void select(JSONReader reader, Consumer<SimpleJSON.Expression> action)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        select(reader, reader.nextToken(), 0, action);
+        reader.nextToken();
+    }
+
+    /**
+     * Select values from a reader without building the whole tree.
+     * @param reader The reader, it must not be moved yet.
+     * @return The selected values in the document order.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the source isn't a json
+     * text.
+     * @see #select(JSONReader, Consumer)
+     */
+    public List<SimpleJSON.Expression> select(JSONReader reader)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        var out = new ArrayList<SimpleJSON.Expression>();
+        select(reader, out::add);
+        return out;
+    }
+
+    /**
+     * Select from the value at cursor, after it the cursor is at the end of
+     * the value.
+     */
+    private void select(JSONReader r, JSONReader.Token token, int i,
+                        Consumer<SimpleJSON.Expression> out)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        if (i == _steps.length) {
+            out.accept(SimpleJSON.build(r, token));
+            return;
+        }
+
+        Step step = _steps[i];
+        if (token == JSONReader.Token.BEGIN_OBJECT
+            && (step.kind == KEY || step.kind == WILDCARD)) {
+            // A later value of a key replaces the values selected in the
+            // former one.
+            var selected = new LinkedHashMap<String, List<SimpleJSON.Expression>>();
+            while ((token = r.nextToken()) != JSONReader.Token.END_OBJECT) {
+                String key = r.currentKey();
+                if (step.kind == WILDCARD || step.key.equals(key)) {
+                    var values = new ArrayList<SimpleJSON.Expression>();
+                    select(r, token, i + 1, values::add);
+                    selected.put(key, values);
+                } else {
+                    r.skipValue();
+                }
+            }
+            for (List<SimpleJSON.Expression> values : selected.values())
+                values.forEach(out);
+        } else if (token == JSONReader.Token.BEGIN_ARRAY && step.kind != KEY) {
+            if (step.needsLength()) {
+                SimpleJSON.Expression e = SimpleJSON.build(r, token);
+                select(e, i, out);
+                return;
+            }
+            int index = 0;
+            while ((token = r.nextToken()) != JSONReader.Token.END_ARRAY) {
+                if (isEmptyElement(r, token)) {
+                    r.skipValue();
+                    continue;
+                }
+                if (step.selects(index++))
+                    select(r, token, i + 1, out);
+                else
+                    r.skipValue();
+            }
+        } else {
+            r.skipValue();
+        }
+    }
+
+    /**
+     * Whether the element at cursor is dropped by ArrayExp, so it isn't
+     * counted by indexes.
+     */
+    private static boolean isEmptyElement(JSONReader r, JSONReader.Token token)
+        throws IOException
+    {
+        if (token == JSONReader.Token.VALUE)
+            return r.getTokenizer().valueLength() == 0;
+        int c = r.getTokenizer().peek();
+        return c == (token == JSONReader.Token.BEGIN_OBJECT ? '}' : ']');
+    }
+
+    @Override
+    public String toString()
+    {
+        return _path;
+    }
+}
@@ -0,0 +1,418 @@
+package name.sayid.sql;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A pull parser of json. The reader moves a cursor over the document token
+ * by token, the caller decides what to do with each token: read the value,
+ * skip it or build an expression from it. Only the path from the root to
+ * the cursor is kept, so a document of any size is read in constant memory.
+ * <p>
+ * A typical loop over a huge array of objects:
+ * <pre>
+ *     var reader = new JSONReader(in);
+ *     reader.nextToken();                       // BEGIN_ARRAY
+ *     while (reader.nextToken() == Token.BEGIN_OBJECT) {
+ *         while (reader.nextToken() != Token.END_OBJECT) {
+ *             if ("id".equals(reader.currentKey())) id = reader.readLong();
+ *             else reader.skipValue();
+ *         }
+ *     }
+ * </pre>
+ * The syntax accepted is same as SimpleJSON: keys and strings may be quoted
+ * by '"' or '\'', values without quote marks are kept as they are, and empty
+ * elements of an array are ignored.
+ */
+public class JSONReader implements Closeable
+{
+    /**
+     * The tokens a reader can return.
+     */
+    public enum Token
+    {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        /** A native value: string, number, boolean, null and so on. */
+        VALUE,
+        END_DOCUMENT
+    }
+
+    private static final int EMPTY_OBJECT    = 1;
+    private static final int NONEMPTY_OBJECT = 2;
+    private static final int EMPTY_ARRAY     = 3;
+    private static final int NONEMPTY_ARRAY  = 4;
+
+    private final JSONTokenizer _tokenizer;
+
+    private int[]    _stack   = new int[16];
+    private String[] _keys    = new String[16];
+    private int[]    _indexes = new int[16];
+    private int      _depth   = 0;
+    private boolean  _started = false;
+
+    private Token  _token = null;
+    private String _key   = null;
+    private int    _index = -1;
+
+    /**
+     * Constructor, the reader moves over the tokens recognized by a
+     * tokenizer.
+     * @param tokenizer The tokenizer of the json source.
+     */
+    public JSONReader(JSONTokenizer tokenizer)
+    {
+        _tokenizer = tokenizer;
+    }
+
+    /**
+     * Constructor, the reader reads json text from a reader.
+     * @param reader The source of json text.
+     */
+    public JSONReader(Reader reader)
+    {
+        this(new JSONCharTokenizer(reader));
+    }
+
+    /**
+     * Constructor, the reader reads json text from an input stream. The
+     * bytes are decoded as utf-8.
+     * @param in The source of json text.
+     */
+    public JSONReader(InputStream in)
+    {
+        this(new JSONCharTokenizer(in));
+    }
+
+    /**
+     * Constructor, the reader reads utf-8 encoded json text from the
+     * remaining bytes of a buffer.
+     * @param buf The source of json text.
+     */
+    public JSONReader(ByteBuffer buf)
+    {
+        this(new JSONByteTokenizer(buf));
+    }
+
+    /**
+     * Constructor, the reader reads json text from a string.
+     * @param s The source of json text.
+     */
+    public JSONReader(String s)
+    {
+        this(new JSONCharTokenizer(s));
+    }
+
+    /**
+     * Move the cursor to the next token.
+     * @return The next token. END_DOCUMENT is returned when the root
+     * container is closed and there are only blank characters left.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the source isn't a json
+     * text.
+     */
+    public Token nextToken()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        final JSONTokenizer t = _tokenizer;
+        if (_depth == 0) {
+            if (_started) {
+                if (t.peek() >= 0)
+                    throw new SimpleJSON.JSONFormatException(
+                        "After " + t.position()
+                            + ", the left charaters can't be explained.");
+                _key = null;
+                _index = -1;
+                return _token = Token.END_DOCUMENT;
+            }
+            _started = true;
+            int c = t.peek();
+            if (c != '{' && c != '[')
+                throw new SimpleJSON.JSONFormatException(
+                    "JSONValue mast start '{' or '['");
+            return value();
+        }
+
+        int level = _depth - 1;
+        int c;
+        switch (_stack[level]) {
+            case NONEMPTY_OBJECT:
+                c = t.peek();
+                if (c == '}') {
+                    t.consume();
+                    return end(Token.END_OBJECT);
+                } else if (c != ',') {
+                    throw unexpected(c, "json");
+                }
+                t.consume();
+                break;
+            case EMPTY_OBJECT:
+                if (t.peek() == '}') {
+                    t.consume();
+                    return end(Token.END_OBJECT);
+                }
+                _stack[level] = NONEMPTY_OBJECT;
+                break;
+            default:
+                for (;;) {
+                    c = t.peek();
+                    if (_stack[level] == NONEMPTY_ARRAY) {
+                        if (c == ']') {
+                            t.consume();
+                            return end(Token.END_ARRAY);
+                        } else if (c != ',') {
+                            throw unexpected(c, "array");
+                        }
+                        t.consume();
+                        c = t.peek();
+                    }
+                    _stack[level] = NONEMPTY_ARRAY;
+                    if (c == ']') {
+                        t.consume();
+                        return end(Token.END_ARRAY);
+                    } else if (c != ',') {
+                        _indexes[level]++;
+                        return value();
+                    }
+                }
+        }
+
+        _keys[level] = t.scanKey();
+        if (t.peek() != ':')
+            throw new SimpleJSON.JSONFormatException (
+                "There must be a ':' charactor.");
+        t.consume();
+        return value();
+    }
+
+    /**
+     * Recognize the value at cursor: a container is opened, or a native
+     * value is scanned.
+     */
+    private Token value()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        if (_depth > 0) {
+            _key = _keys[_depth - 1];
+            _index = _indexes[_depth - 1];
+        } else {
+            _key = null;
+            _index = -1;
+        }
+
+        int c = _tokenizer.peek();
+        if (c == '{') {
+            _tokenizer.consume();
+            push(EMPTY_OBJECT);
+            return _token = Token.BEGIN_OBJECT;
+        } else if (c == '[') {
+            _tokenizer.consume();
+            push(EMPTY_ARRAY);
+            return _token = Token.BEGIN_ARRAY;
+        } else {
+            _tokenizer.scanValue();
+            return _token = Token.VALUE;
+        }
+    }
+
+    private void push(int state)
+    {
+        if (_depth == _stack.length) {
+            int len = _depth * 2;
+            _stack   = Arrays.copyOf(_stack, len);
+            _keys    = Arrays.copyOf(_keys, len);
+            _indexes = Arrays.copyOf(_indexes, len);
+        }
+        _stack[_depth]   = state;
+        _keys[_depth]    = null;
+        _indexes[_depth] = -1;
+        _depth++;
+    }
+
+    private Token end(Token token)
+    {
+        _depth--;
+        if (_depth > 0) {
+            _key = _keys[_depth - 1];
+            _index = _indexes[_depth - 1];
+        } else {
+            _key = null;
+            _index = -1;
+        }
+        return _token = token;
+    }
+
+    private SimpleJSON.JSONFormatException unexpected(int c, String kind)
+    {
+        if (c < 0)
+            return new SimpleJSON.JSONFormatException(
+                "The " + kind + " expression isn't terminate.");
+        return new SimpleJSON.JSONFormatException(
+            "When " + kind + " expression parsering, "
+                + "There is an unkown charactor at "
+                + _tokenizer.position());
+    }
+
+    /**
+     * Skip the value at cursor. When the cursor is at the beginning of an
+     * object or an array, the whole container is skipped without being
+     * recognized, and the cursor moves to the end of it. When the cursor
+     * is at a native value, nothing is done.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the container isn't
+     * terminated.
+     */
+    public void skipValue()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        if (_token == Token.BEGIN_OBJECT) {
+            _tokenizer.skipRest(1);
+            end(Token.END_OBJECT);
+        } else if (_token == Token.BEGIN_ARRAY) {
+            _tokenizer.skipRest(1);
+            end(Token.END_ARRAY);
+        }
+    }
+
+    /**
+     * The token at cursor.
+     * @return The token returned by the last nextToken, null before the
+     * first move.
+     */
+    public Token currentToken()
+    {
+        return _token;
+    }
+
+    /**
+     * The key of the value at cursor. For END_OBJECT and END_ARRAY, it is
+     * the key of the closed container.
+     * @return The key, null when the value isn't a member of an object.
+     */
+    public String currentKey()
+    {
+        return _key;
+    }
+
+    /**
+     * The index of the value at cursor in the array contains it.
+     * @return The index, -1 when the value isn't an element of an array.
+     */
+    public int currentIndex()
+    {
+        return _index;
+    }
+
+    /**
+     * How many containers are opened at cursor. It is 1 for the members of
+     * the root container.
+     * @return The depth.
+     */
+    public int depth()
+    {
+        return _depth;
+    }
+
+    /**
+     * The native value at cursor as it is in the source.
+     * @return The raw value, quote marks and escapes are kept.
+     */
+    public String rawValue()
+    {
+        assertValue();
+        return _tokenizer.rawValue();
+    }
+
+    /**
+     * The current value as a native expression.
+     * @see JSONTokenizer#nativeValue()
+     */
+    SimpleJSON.NativeExp nativeValue()
+    {
+        assertValue();
+        return _tokenizer.nativeValue();
+    }
+
+    /**
+     * Determine the native value at cursor is a null literal.
+     * @return True when the value is null without quote marks.
+     */
+    public boolean isNull()
+    {
+        assertValue();
+        JSONTokenizer t = _tokenizer;
+        if (t.valueQuote() != 0) return false;
+        int end = t.valueLength();
+        while (end > 0 && JSONTokenizer.isBlank(t.valueCharAt(end - 1))) end--;
+        if (end != 4) return false;
+        return t.valueCharAt(0) == 'n' && t.valueCharAt(1) == 'u'
+            && t.valueCharAt(2) == 'l' && t.valueCharAt(3) == 'l';
+    }
+
+    /**
+     * Read the native value at cursor as a string. Quote marks are removed
+     * and escapes are translated.
+     * @return The string, null when the value is a null literal.
+     */
+    public String readString()
+    {
+        return isNull() ? null : _tokenizer.valueString();
+    }
+
+    /**
+     * Read the native value at cursor as a long number. The number is parsed
+     * from the source without making a string.
+     * @return The long number.
+     * @throws SimpleJSON.JSONFormatException When the value isn't a long
+     * number.
+     */
+    public long readLong() throws SimpleJSON.JSONFormatException
+    {
+        assertValue();
+        return _tokenizer.valueLong();
+    }
+
+    /**
+     * Read the native value at cursor as a double number.
+     * @return The double number.
+     * @throws SimpleJSON.JSONFormatException When the value isn't a number.
+     */
+    public double readDouble() throws SimpleJSON.JSONFormatException
+    {
+        try {
+            return Double.parseDouble(readString());
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new SimpleJSON.JSONFormatException(
+                "The value before " + _tokenizer.position()
+                    + " isn't a number.");
+        }
+    }
+
+    private void assertValue()
+    {
+        if (_token != Token.VALUE)
+            throw new IllegalStateException(
+                "The cursor isn't at a native value but " + _token);
+    }
+
+    /**
+     * The tokenizer under the reader.
+     * @return The tokenizer.
+     */
+    public JSONTokenizer getTokenizer()
+    {
+        return _tokenizer;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        _tokenizer.close();
+    }
+}
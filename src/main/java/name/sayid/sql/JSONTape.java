@@ -0,0 +1,674 @@
+package name.sayid.sql;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact form of a parsed json document. The structure is flattened to
+ * a tape, an array of long numbers, and every key and native value is a
+ * range of the source. So a document costs about eight bytes per key or
+ * value besides the source, instead of several objects per value.
+ * <p>
+ * An entry of the tape is tagged by the highest four bits:
+ * <pre>
+ *     OBJECT, ARRAY  tag | member count (28 bits) | index of END (32 bits)
+ *     END            tag | index of OBJECT or ARRAY (32 bits)
+ *     KEY, VALUE     tag | flags (4 bits) | length (24 bits) | offset (32 bits)
+ * </pre>
+ * When the length of a key or a value doesn't fit in 24 bits, the field is
+ * filled by ones and the real length is kept in the next entry.
+ * </p>
+ * <p>
+ * The expressions returned by root() are views over the tape. They are
+ * JSONExpr, ArrayExp and NativeExp as the expressions built by SimpleJSON,
+ * and the strings are made only when they are asked for. The views are
+ * immutable and can be shared between threads.
+ * </p>
+ */
+public final class JSONTape
+{
+    static final int OBJECT = 1;
+    static final int ARRAY  = 2;
+    static final int END    = 3;
+    static final int KEY    = 4;
+    static final int VALUE  = 5;
+
+    /** The value is quoted by '"'. */
+    static final int DOUBLE_QUOTED = 1;
+    /** The value is quoted by '\''. */
+    static final int SINGLE_QUOTED = 2;
+    /** The quoted value contains escapes. */
+    static final int ESCAPED       = 4;
+
+    private static final int  LONG_LENGTH = 0xFFFFFF;
+    private static final int  MAX_COUNT   = 0xFFFFFFF;
+    private static final long MAX_OFFSET  = 0xFFFFFFFFL;
+
+    private final String _chars;
+    private final ByteBuffer _bytes;
+    private long[] _tape = new long[64];
+    private int _size = 0;
+
+    private JSONTape(String chars, ByteBuffer bytes)
+    {
+        _chars = chars;
+        _bytes = bytes;
+    }
+
+    /**
+     * Parse a string to a tape. The tape keeps the reference of the string.
+     * @param s The json text.
+     * @return The tape.
+     * @throws SimpleJSON.JSONFormatException When the text isn't a json
+     * object.
+     */
+    public static JSONTape parse(String s)
+        throws SimpleJSON.JSONFormatException
+    {
+        var tape = new JSONTape(s, null);
+        tape.build(new JSONCharTokenizer(s));
+        return tape;
+    }
+
+    /**
+     * Parse the remaining utf-8 bytes of a buffer to a tape. The tape keeps
+     * the reference of the buffer, its content mustn't be changed later.
+     * @param buf The json text.
+     * @return The tape.
+     * @throws SimpleJSON.JSONFormatException When the text isn't a json
+     * object.
+     */
+    public static JSONTape parse(ByteBuffer buf)
+        throws SimpleJSON.JSONFormatException
+    {
+        var tape = new JSONTape(null, buf.duplicate());
+        tape.build(new JSONByteTokenizer(buf));
+        return tape;
+    }
+
+    /**
+     * The root json expression, a view over the tape.
+     * @return The root expression.
+     */
+    public SimpleJSON.JSONExpr root()
+    {
+        return new ObjectView(this, 0);
+    }
+
+    /**
+     * The count of entries in the tape.
+     * @return The count of entries.
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Building
+    //
+
+    private void build(JSONTokenizer t)
+        throws SimpleJSON.JSONFormatException
+    {
+        try {
+            if (t.peek() != '{')
+                throw new SimpleJSON.JSONFormatException(
+                    "JSONValue mast start '{'");
+            t.consume();
+            object(t);
+            if (t.peek() >= 0)
+                throw new SimpleJSON.JSONFormatException(
+                    "After " + t.position()
+                        + ", the left charaters can't be explained.");
+        } catch (IOException e) {
+            throw new SimpleJSON.JSONFormatException(e.getMessage());
+        }
+        _tape = Arrays.copyOf(_tape, _size);
+    }
+
+    private void append(long entry)
+    {
+        if (_size == _tape.length)
+            _tape = Arrays.copyOf(_tape, _size * 2);
+        _tape[_size++] = entry;
+    }
+
+    private void append(int tag, int flags, long offset, int length)
+        throws SimpleJSON.JSONFormatException
+    {
+        if (offset > MAX_OFFSET)
+            throw new SimpleJSON.JSONFormatException(
+                "The source is too large for a tape.");
+        long head = ((long) tag << 60) | ((long) flags << 56) | offset;
+        if (length < LONG_LENGTH) {
+            append(head | ((long) length << 32));
+        } else {
+            append(head | ((long) LONG_LENGTH << 32));
+            append(length);
+        }
+    }
+
+    private void close(int begin, int tag, int count)
+    {
+        int end = _size;
+        append(((long) END << 60) | begin);
+        _tape[begin] = ((long) tag << 60)
+            | ((long) Math.min(count, MAX_COUNT) << 32) | end;
+    }
+
+    private void object(JSONTokenizer t)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        int begin = _size;
+        append(0);
+        int count = 0;
+        if (t.peek() == '}') {
+            t.consume();
+            close(begin, OBJECT, count);
+            return;
+        }
+        for (;;) {
+            t.scanKeyRange();
+            append(KEY, 0, t.keyStart(), t.keyLength());
+            if (t.peek() != ':')
+                throw new SimpleJSON.JSONFormatException (
+                    "There must be a ':' charactor.");
+            t.consume();
+            value(t, false);
+            count++;
+
+            int c = t.peek();
+            if (c == ',') {
+                t.consume();
+            } else if (c == '}') {
+                t.consume();
+                close(begin, OBJECT, count);
+                return;
+            } else if (c < 0) {
+                throw new SimpleJSON.JSONFormatException(
+                    "Json expression isn't terminate.");
+            } else {
+                throw new SimpleJSON.JSONFormatException(
+                    "When json expression parsering, "
+                        +" There is an unkown charactor at " + t.position());
+            }
+        }
+    }
+
+    private void array(JSONTokenizer t)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        int begin = _size;
+        append(0);
+        int count = 0;
+        boolean first = true;
+        for (;;) {
+            int c = t.peek();
+            if (!first) {
+                if (c == ']') {
+                    t.consume();
+                    close(begin, ARRAY, count);
+                    return;
+                } else if (c < 0) {
+                    throw new SimpleJSON.JSONFormatException(
+                        "Array expression is unterminate.");
+                } else if (c != ',') {
+                    throw new SimpleJSON.JSONFormatException(
+                        "When array expression parsering, "
+                            + "There is an unkown charactor at "
+                            + t.position());
+                }
+                t.consume();
+                c = t.peek();
+            }
+            first = false;
+            if (c == ']') {
+                t.consume();
+                close(begin, ARRAY, count);
+                return;
+            } else if (c != ',' && value(t, true)) {
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Write a value to tape. As SimpleJSON does, an empty container isn't
+     * kept in an array.
+     * @return False when the value is dropped.
+     */
+    private boolean value(JSONTokenizer t, boolean inArray)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        int c = t.peek();
+        if (c == '{' || c == '[') {
+            t.consume();
+            int begin = _size;
+            if (c == '{') object(t);
+            else array(t);
+            if (inArray && count(begin) == 0) {
+                _size = begin;
+                return false;
+            }
+            return true;
+        }
+
+        t.scanValue();
+        int q = t.valueQuote();
+        int flags = q == '"' ? DOUBLE_QUOTED : q == '\'' ? SINGLE_QUOTED : 0;
+        if (t.isValueEscaped()) flags |= ESCAPED;
+        append(VALUE, flags, t.valueStart(), t.valueLength());
+        return true;
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Reading
+    //
+
+    int tag(int i)
+    {
+        return (int) (_tape[i] >>> 60);
+    }
+
+    int flags(int i)
+    {
+        return (int) (_tape[i] >>> 56) & 0xF;
+    }
+
+    int offset(int i)
+    {
+        return (int) _tape[i];
+    }
+
+    int length(int i)
+    {
+        int len = (int) (_tape[i] >>> 32) & LONG_LENGTH;
+        return len == LONG_LENGTH ? (int) _tape[i + 1] : len;
+    }
+
+    int count(int i)
+    {
+        int count = (int) (_tape[i] >>> 32) & MAX_COUNT;
+        if (count < MAX_COUNT) return count;
+        count = 0;
+        int end = (int) _tape[i];
+        boolean isObject = tag(i) == OBJECT;
+        for (int k = i + 1; k < end; k = next(isObject ? next(k) : k))
+            count++;
+        return count;
+    }
+
+    /**
+     * The index of the entry after the value (or the key) at index i.
+     */
+    int next(int i)
+    {
+        switch (tag(i)) {
+            case OBJECT:
+            case ARRAY:
+                return (int) _tape[i] + 1;
+            default:
+                return ((_tape[i] >>> 32) & LONG_LENGTH) == LONG_LENGTH ?
+                    i + 2 : i + 1;
+        }
+    }
+
+    /**
+     * The text of a key or value entry, as it is in the source.
+     */
+    String text(int i)
+    {
+        int off = offset(i);
+        int len = length(i);
+        if (_chars != null) return _chars.substring(off, off + len);
+        if (_bytes.hasArray())
+            return new String(_bytes.array(), _bytes.arrayOffset() + off, len,
+                StandardCharsets.UTF_8);
+        byte[] b = new byte[len];
+        ByteBuffer view = _bytes.duplicate();
+        view.limit(off + len).position(off);
+        view.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare a key entry to a string without making a string of the entry.
+     */
+    boolean matches(int i, String key)
+    {
+        int off = offset(i);
+        int len = length(i);
+        if (_chars != null)
+            return len == key.length() && _chars.regionMatches(off, key, 0, len);
+        if (len < key.length()) return false;
+        for (int k = 0; k < key.length(); k++) {
+            char c = key.charAt(k);
+            if (c >= 0x80) return text(i).equals(key);
+            if (_bytes.get(off + k) != c) return false;
+        }
+        return len == key.length();
+    }
+
+    SimpleJSON.Expression view(int i)
+    {
+        switch (tag(i)) {
+            case OBJECT:
+                return new ObjectView(this, i);
+            case ARRAY:
+                return new ArrayView(this, i);
+            default:
+                return new ValueView(this, i);
+        }
+    }
+
+    /**
+     * The members of the object at index i, as pairs of the indexes of a key
+     * and its value. When a key appears more than once, it is kept at its
+     * first place with the last value, as the expressions built by
+     * SimpleJSON.
+     */
+    int[] members(int i)
+    {
+        int end = (int) _tape[i];
+        int[] pairs = new int[count(i) * 2];
+        var slots = new HashMap<String, Integer>();
+        int n = 0;
+        for (int k = i + 1; k < end; ) {
+            int v = next(k);
+            Integer slot = slots.putIfAbsent(text(k), n);
+            if (slot == null) {
+                pairs[n * 2] = k;
+                pairs[n * 2 + 1] = v;
+                n++;
+            } else {
+                pairs[slot * 2 + 1] = v;
+            }
+            k = next(v);
+        }
+        return n * 2 == pairs.length ? pairs : Arrays.copyOf(pairs, n * 2);
+    }
+
+    /**
+     * Serialize the value at index i, the format is same as the toString of
+     * the expressions built by SimpleJSON.
+     */
+    void writeTo(JSONWriter w, int i) throws IOException
+    {
+        int tag = tag(i);
+        if (tag == OBJECT) {
+            int[] pairs = members(i);
+            w.beginObject();
+            for (int m = 0; m < pairs.length; m += 2) {
+                w.key(text(pairs[m]));
+                writeTo(w, pairs[m + 1]);
+            }
+            w.endObject();
+        } else if (tag == ARRAY) {
+            int end = (int) _tape[i];
+            w.beginArray();
+            for (int k = i + 1; k < end; k = next(k)) writeTo(w, k);
+            w.endArray();
+        } else {
+            w.value(text(i));
+        }
+    }
+
+    String toString(int i)
+    {
+        var sb = new StringBuilder();
+        try {
+            writeTo(new JSONWriter(sb), i);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Views
+    //
+
+    /**
+     * A json expression over a tape. A key is found by comparing the keys of
+     * the members one by one. When a key appears more than once, it is shown
+     * once at its first place with the last value, as the expressions built
+     * by SimpleJSON; the members are resolved at the first iteration.
+     */
+    static final class ObjectView extends SimpleJSON.JSONExpr
+    {
+        private final JSONTape _tape;
+        private final int _index;
+        private volatile int[] _members = null;
+
+        ObjectView(JSONTape tape, int index)
+        {
+            super(null);
+            _tape = tape;
+            _index = index;
+        }
+
+        private int[] members()
+        {
+            int[] pairs = _members;
+            if (pairs == null) _members = pairs = _tape.members(_index);
+            return pairs;
+        }
+
+        @Override
+        public SimpleJSON.Expression valueOfKey(String key)
+        {
+            final JSONTape t = _tape;
+            int end = (int) t._tape[_index];
+            int found = -1;
+            for (int k = _index + 1; k < end; ) {
+                int v = t.next(k);
+                if (t.matches(k, key)) found = v;
+                k = t.next(v);
+            }
+            return found < 0 ? null : t.view(found);
+        }
+
+        @Override
+        public Map<String, SimpleJSON.Expression> getMembers()
+        {
+            return new AbstractMap<>() {
+                @Override
+                public Set<Entry<String, SimpleJSON.Expression>> entrySet()
+                {
+                    return new AbstractSet<>() {
+                        @Override
+                        public Iterator<Entry<String, SimpleJSON.Expression>>
+                        iterator()
+                        {
+                            return new MemberIterator(_tape, members());
+                        }
+
+                        @Override
+                        public int size()
+                        {
+                            return members().length / 2;
+                        }
+                    };
+                }
+
+                @Override
+                public SimpleJSON.Expression get(Object key)
+                {
+                    return key instanceof String ?
+                        valueOfKey((String) key) : null;
+                }
+
+                @Override
+                public boolean containsKey(Object key)
+                {
+                    return get(key) != null;
+                }
+            };
+        }
+
+        @Override
+        public Set<String> keys()
+        {
+            return getMembers().keySet();
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return _tape.count(_index) == 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return _tape.toString(_index);
+        }
+    }
+
+    private static final class MemberIterator
+        implements Iterator<Map.Entry<String, SimpleJSON.Expression>>
+    {
+        private final JSONTape _tape;
+        private final int[] _pairs;
+        private int _m = 0;
+
+        MemberIterator(JSONTape tape, int[] pairs)
+        {
+            _tape = tape;
+            _pairs = pairs;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return _m < _pairs.length;
+        }
+
+        @Override
+        public Map.Entry<String, SimpleJSON.Expression> next()
+        {
+            if (_m >= _pairs.length) throw new NoSuchElementException();
+            var e = new AbstractMap.SimpleImmutableEntry<>(
+                _tape.text(_pairs[_m]), _tape.view(_pairs[_m + 1]));
+            _m += 2;
+            return e;
+        }
+    }
+
+    /**
+     * An array expression over a tape. Walking the elements in order costs
+     * O(1) per element, the position of the last visited element is kept.
+     */
+    static final class ArrayView extends SimpleJSON.ArrayExp
+    {
+        private final JSONTape _tape;
+        private final int _index;
+        private volatile long _cursor;
+
+        ArrayView(JSONTape tape, int index)
+        {
+            super(null);
+            _tape = tape;
+            _index = index;
+            _cursor = index + 1;
+        }
+
+        private int locate(int n)
+        {
+            long cursor = _cursor;
+            int i = (int) (cursor >>> 32);
+            int k = (int) cursor;
+            if (n < i) {
+                i = 0;
+                k = _index + 1;
+            }
+            int end = (int) _tape._tape[_index];
+            for (; i < n && k < end; i++) k = _tape.next(k);
+            if (k >= end) throw new IndexOutOfBoundsException(
+                "Index: " + n);
+            _cursor = ((long) i << 32) | k;
+            return k;
+        }
+
+        @Override
+        public List<SimpleJSON.Expression> getMembers()
+        {
+            return new AbstractList<>() {
+                @Override
+                public SimpleJSON.Expression get(int index)
+                {
+                    if (index < 0)
+                        throw new IndexOutOfBoundsException("Index: " + index);
+                    return _tape.view(locate(index));
+                }
+
+                @Override
+                public int size()
+                {
+                    return _tape.count(_index);
+                }
+            };
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return _tape.count(_index) == 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return _tape.toString(_index);
+        }
+    }
+
+    /**
+     * A native value over a tape, the raw text is made when it is asked for.
+     */
+    static final class ValueView extends SimpleJSON.NativeExp
+    {
+        private final JSONTape _tape;
+        private final int _index;
+
+        ValueView(JSONTape tape, int index)
+        {
+            _tape = tape;
+            _index = index;
+        }
+
+        @Override
+        public String toString()
+        {
+            return _tape.text(_index);
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return _tape.length(_index) == 0;
+        }
+
+        @Override
+        public String getValue()
+        {
+            return _tape.text(_index);
+        }
+    }
+}
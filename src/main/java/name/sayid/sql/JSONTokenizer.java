@@ -0,0 +1,357 @@
+package name.sayid.sql;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The lexical layer under SimpleJSON. A tokenizer walks the json source
+ * once, from left to right, and recognizes keys, native values and the
+ * structural characters. It never builds expressions; the tree builder
+ * in SimpleJSON and the other readers are made on top of it.
+ * <p>
+ *     Characters are classified by a static table instead of sets, so
+ *     recognizing a character costs an array access and no boxing.
+ * </p>
+ * <p>
+ *     A native value is recorded as a range of the source. The range is
+ *     valid until the next key or value is scanned. Subclasses decide how
+ *     the source is kept: a char buffer, a byte buffer and so on.
+ * </p>
+ */
+public abstract class JSONTokenizer implements Closeable
+{
+    /** Any character which has no special meaning. */
+    static final byte OTHER  = 0;
+    /** '\r', '\n', '\t' and ' '. */
+    static final byte BLANK  = 1;
+    /** '{' and '[', they can't appear in a native value. */
+    static final byte BEGIN  = 2;
+    /** ',', '}' and ']', they terminate a native value. */
+    static final byte END    = 3;
+    /** '"' and '\''. */
+    static final byte QUOTE  = 4;
+    /** '\\'. */
+    static final byte ESCAPE = 5;
+    /** ':'. */
+    static final byte COLON  = 6;
+
+    private static final byte[] CLASSES = new byte[128];
+    static {
+        CLASSES['\r'] = BLANK;
+        CLASSES['\n'] = BLANK;
+        CLASSES['\t'] = BLANK;
+        CLASSES[' ']  = BLANK;
+        CLASSES['{']  = BEGIN;
+        CLASSES['[']  = BEGIN;
+        CLASSES[',']  = END;
+        CLASSES['}']  = END;
+        CLASSES[']']  = END;
+        CLASSES['"']  = QUOTE;
+        CLASSES['\''] = QUOTE;
+        CLASSES['\\'] = ESCAPE;
+        CLASSES[':']  = COLON;
+    }
+
+    private JSONKeyTable _keyTable = JSONKeyTable.shared();
+
+    /**
+     * Classify a character.
+     * @param c The character, or a byte value of a utf-8 sequence.
+     * @return One of the class constants. Every character out of ascii
+     * belongs to OTHER.
+     */
+    static byte classOf(int c)
+    {
+        return (c & ~0x7f) == 0 ? CLASSES[c] : OTHER;
+    }
+
+    /**
+     * Determine the character is a blank character.
+     * @param c The checking character.
+     * @return True when the character is '\r', '\n', '\t' or ' '.
+     */
+    public static boolean isBlank(int c)
+    {
+        return classOf(c) == BLANK;
+    }
+
+    /**
+     * Skip all blank characters and return the next valid character.
+     * The returned character isn't consumed.
+     * @return The next valid character, -1 when the source is exhausted.
+     * @throws IOException
+     */
+    public abstract int peek() throws IOException;
+
+    /**
+     * Consume the character returned by the last peek.
+     */
+    public abstract void consume();
+
+    /**
+     * Set the table the scanned keys are interned in, the shared table is
+     * used by default.
+     * @param table The table, null means the keys aren't interned.
+     */
+    public void setKeyTable(JSONKeyTable table)
+    {
+        _keyTable = table;
+    }
+
+    /**
+     * Recognize a key at current position. The key must be surrounded by
+     * two '"' or two '\''. The key is interned in the key table.
+     * @return The key without quote marks.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the key isn't started by
+     * a quote mark, isn't terminated or is empty.
+     */
+    public String scanKey()
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        scanKeyRange();
+        return _keyTable == null ? keyString() : _keyTable.intern(this);
+    }
+
+    /**
+     * Recognize a key at current position like scanKey, but the key is only
+     * recorded as a range of the source, no string is made.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the key isn't started by
+     * a quote mark, isn't terminated or is empty.
+     */
+    public abstract void scanKeyRange()
+        throws IOException, SimpleJSON.JSONFormatException;
+
+    /**
+     * The position of the first character of the last scanned key, the
+     * quote mark isn't included.
+     * @return The position in the source.
+     */
+    public abstract long keyStart();
+
+    /**
+     * The length of the last scanned key, the quote marks aren't included.
+     * @return The length of the key.
+     */
+    public abstract int keyLength();
+
+    /**
+     * Make a string of the last scanned key. It must be called before the
+     * next peek, because the key may be dropped from the buffer.
+     * @return The key.
+     */
+    protected abstract String keyString();
+
+    /**
+     * A character of the last scanned key, it is used to compare the key
+     * without making a string.
+     * @param index The index in the key.
+     * @return The character, -1 when the key can't be compared by chars,
+     * for example it contains a multi-byte utf-8 sequence.
+     */
+    protected abstract int keyCharAt(int index);
+
+    /**
+     * Recognize a native value at current position. A quoted value must be
+     * followed by ',', '}' or ']'. A value without quote is terminated by
+     * ',', '}' or ']' and all characters before it, blank characters too,
+     * belong to the value. The terminating character isn't consumed.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the value isn't terminated
+     * or it contains illegal characters.
+     */
+    public abstract void scanValue()
+        throws IOException, SimpleJSON.JSONFormatException;
+
+    /**
+     * Skip characters until the containers opened before are all closed.
+     * The scan is only aware of quote marks and brackets, it doesn't check
+     * the skipped content. Same as the parser, a quote mark opens a string
+     * only when it follows a structural character, a quote mark inside a
+     * bare value is an ordinary character.
+     * @param depth How many containers are opened at current position.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the source is exhausted
+     * before all containers are closed.
+     */
+    public abstract void skipRest(int depth)
+        throws IOException, SimpleJSON.JSONFormatException;
+
+    /**
+     * The absolute position of the next character in the source.
+     * @return The count of consumed characters.
+     */
+    public abstract long position();
+
+    /**
+     * Make a new tokenizer over a range of the same source. The new one is
+     * independent of this tokenizer, and it reports the same positions as
+     * this one. Only a source kept in memory can be forked.
+     * @param start The position of the first character of the range.
+     * @param end The position after the last character of the range.
+     * @return The new tokenizer.
+     * @throws UnsupportedOperationException When the source is a stream.
+     * @see #canFork()
+     */
+    public JSONTokenizer fork(long start, long end)
+    {
+        throw new UnsupportedOperationException(
+            "The source of " + getClass().getSimpleName()
+                + " can't be forked.");
+    }
+
+    /**
+     * Determine the tokenizer can be forked.
+     * @return True when the source is kept in memory.
+     */
+    public boolean canFork()
+    {
+        return false;
+    }
+
+    /**
+     * The position of the first character of the last scanned value, the
+     * quote mark is included.
+     * @return The position in the source.
+     */
+    public abstract long valueStart();
+
+    /**
+     * Determine the last scanned value contains escapes.
+     * @return True when there is a '\\' in the quoted value.
+     */
+    public abstract boolean isValueEscaped();
+
+    /**
+     * The last scanned value as it is in the source, quote marks and
+     * escapes are kept.
+     * @return The raw value.
+     */
+    public abstract String rawValue();
+
+    /**
+     * The last scanned value as a native expression. The raw value is
+     * copied by default; a tokenizer over an immutable source may keep the
+     * range and make the text when it is asked for.
+     * @return The native expression.
+     */
+    SimpleJSON.NativeExp nativeValue()
+    {
+        var e = new SimpleJSON.NativeExp();
+        e.setContent(rawValue());
+        return e;
+    }
+
+    /**
+     * The last scanned value decoded. Quote marks are removed and escapes
+     * are translated, the value without quote marks is trimmed.
+     * @return The decoded value.
+     */
+    public abstract String valueString();
+
+    /**
+     * The length of the last scanned value, quote marks are included.
+     * @return The length of the raw value.
+     */
+    public abstract int valueLength();
+
+    /**
+     * Return a character of the last scanned raw value.
+     * @param index The index in the raw value.
+     * @return The character, or a byte value of a utf-8 sequence.
+     */
+    protected abstract int valueCharAt(int index);
+
+    /**
+     * The quote mark of the last scanned value.
+     * @return '"' or '\'', zero when the value isn't quoted.
+     */
+    public abstract int valueQuote();
+
+    /**
+     * Determine the last scanned value is empty, it means there are no
+     * characters between the previous delimiter and the next one.
+     * @return True when the value is empty.
+     */
+    public boolean isValueEmpty()
+    {
+        return valueLength() == 0;
+    }
+
+    /**
+     * Parse the last scanned value as a long number. The digits are read
+     * from the source directly, so no string is made.
+     * @return The long value.
+     * @throws SimpleJSON.JSONFormatException When the value isn't a long
+     * number.
+     */
+    public long valueLong() throws SimpleJSON.JSONFormatException
+    {
+        int i = 0;
+        int end = valueLength();
+        if (valueQuote() != 0) {
+            i++;
+            end--;
+        }
+        while (i < end && isBlank(valueCharAt(i))) i++;
+        while (end > i && isBlank(valueCharAt(end - 1))) end--;
+
+        boolean negative = false;
+        if (i < end && (valueCharAt(i) == '-' || valueCharAt(i) == '+')) {
+            negative = valueCharAt(i) == '-';
+            i++;
+        }
+        if (i >= end) throw notNumber();
+
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long r = 0;
+        for (; i < end; i++) {
+            int d = valueCharAt(i) - '0';
+            if (d < 0 || d > 9 || r < multmin) throw notNumber();
+            r *= 10;
+            if (r < limit + d) throw notNumber();
+            r -= d;
+        }
+        return negative ? r : -r;
+    }
+
+    /**
+     * Parse the last scanned value as a double number. An integer of less
+     * than 19 digits is read from the source directly, as valueLong; the
+     * other numbers are parsed from their texts.
+     * @return The double value.
+     * @throws SimpleJSON.JSONFormatException When the value isn't a number.
+     */
+    public double valueDouble() throws SimpleJSON.JSONFormatException
+    {
+        int i = 0;
+        int end = valueLength();
+        if (valueQuote() != 0) {
+            i++;
+            end--;
+        }
+        while (i < end && isBlank(valueCharAt(i))) i++;
+        while (end > i && isBlank(valueCharAt(end - 1))) end--;
+        if (i < end && (valueCharAt(i) == '-' || valueCharAt(i) == '+')) i++;
+        boolean isInteger = i < end && end - i < 19;
+        for (; isInteger && i < end; i++) {
+            int c = valueCharAt(i);
+            isInteger = c >= '0' && c <= '9';
+        }
+        if (isInteger) return valueLong();
+        try {
+            return Double.parseDouble(valueString());
+        } catch (NumberFormatException e) {
+            throw new SimpleJSON.JSONFormatException(
+                "The value before " + position() + " isn't a number.");
+        }
+    }
+
+    private SimpleJSON.JSONFormatException notNumber()
+    {
+        return new SimpleJSON.JSONFormatException(
+            "The value before " + position() + " isn't a long number.");
+    }
+}
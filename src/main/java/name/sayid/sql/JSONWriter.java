@@ -0,0 +1,486 @@
+package name.sayid.sql;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A streaming writer of json text. The text is written into an appendable,
+ * a writer or an output stream through a reusable buffer, nothing of the
+ * whole document is kept in memory. The writer accepts a tree of
+ * expressions, a sequence of events (beginObject, key, value, endObject
+ * and so on), or the tokens of a JSONReader.
+ * <p>
+ *     The format is same as the toString of the expressions: no blank
+ *     characters, keys quoted by '"', native values written as they are.
+ *     A copy of a reader drops the empty members of arrays as the
+ *     expressions do, but a repeated key of an object is copied every time
+ *     it appears, the expressions keep only its last value.
+ *     A key contains '"' is quoted by '\'' instead, so the text can be
+ *     parsed by SimpleJSON again.
+ * </p>
+ */
+public class JSONWriter implements Closeable, Flushable
+{
+    private static final int BUFFER_SIZE = 8192;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder _sb;
+    private final Writer _writer;
+    private final Appendable _appendable;
+    private final char[] _buf;
+    private int _pos = 0;
+
+    private boolean[] _hasMember = new boolean[16];
+    private int _depth = 0;
+    private boolean _afterKey = false;
+
+    /**
+     * Constructor, the text is written into an appendable. A StringBuilder
+     * is written directly, the others are written through a buffer.
+     * @param out The destination of the text.
+     */
+    public JSONWriter(Appendable out)
+    {
+        if (out instanceof StringBuilder) {
+            _sb = (StringBuilder) out;
+            _writer = null;
+            _appendable = null;
+            _buf = null;
+        } else {
+            _sb = null;
+            _writer = out instanceof Writer ? (Writer) out : null;
+            _appendable = out;
+            _buf = new char[BUFFER_SIZE];
+        }
+    }
+
+    /**
+     * Constructor, the text is encoded as utf-8 and written into an output
+     * stream.
+     * @param out The destination of the text.
+     */
+    public JSONWriter(OutputStream out)
+    {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Serialize an expression to a string.
+     * @param e The expression.
+     * @return The json text.
+     */
+    public static String toString(SimpleJSON.Expression e)
+    {
+        var sb = new StringBuilder();
+        try {
+            new JSONWriter(sb).write(e);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Quote a string by '"' and escape it, same as the string event.
+     * @param s The string.
+     * @return The quoted string.
+     */
+    static String quote(String s)
+    {
+        var sb = new StringBuilder(s.length() + 2);
+        try {
+            new JSONWriter(sb).string(s);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Output
+    //
+
+    private void put(char c) throws IOException
+    {
+        if (_sb != null) {
+            _sb.append(c);
+            return;
+        }
+        if (_pos == _buf.length) flushBuffer();
+        _buf[_pos++] = c;
+    }
+
+    private void put(String s) throws IOException
+    {
+        if (_sb != null) {
+            _sb.append(s);
+            return;
+        }
+        int len = s.length();
+        int i = 0;
+        while (i < len) {
+            if (_pos == _buf.length) flushBuffer();
+            int n = Math.min(len - i, _buf.length - _pos);
+            s.getChars(i, i + n, _buf, _pos);
+            _pos += n;
+            i += n;
+        }
+    }
+
+    private void flushBuffer() throws IOException
+    {
+        if (_pos == 0) return;
+        if (_writer != null) {
+            _writer.write(_buf, 0, _pos);
+        } else {
+            _appendable.append(CharBuffer.wrap(_buf, 0, _pos));
+        }
+        _pos = 0;
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Events
+    //
+
+    private void beforeValue() throws IOException
+    {
+        if (_afterKey) {
+            _afterKey = false;
+            return;
+        }
+        if (_depth > 0) {
+            if (_hasMember[_depth - 1]) put(',');
+            _hasMember[_depth - 1] = true;
+        }
+    }
+
+    private void open(char c) throws IOException
+    {
+        beforeValue();
+        put(c);
+        if (_depth == _hasMember.length)
+            _hasMember = Arrays.copyOf(_hasMember, _depth * 2);
+        _hasMember[_depth++] = false;
+    }
+
+    private void close(char c)
+    {
+        if (_depth == 0 || _afterKey)
+            throw new IllegalStateException(
+                "There isn't an opened container to be closed by " + c);
+        _depth--;
+    }
+
+    /**
+     * Begin a json expression.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter beginObject() throws IOException
+    {
+        open('{');
+        return this;
+    }
+
+    /**
+     * End the json expression began last.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter endObject() throws IOException
+    {
+        close('}');
+        put('}');
+        return this;
+    }
+
+    /**
+     * Begin an array expression.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter beginArray() throws IOException
+    {
+        open('[');
+        return this;
+    }
+
+    /**
+     * End the array expression began last.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter endArray() throws IOException
+    {
+        close(']');
+        put(']');
+        return this;
+    }
+
+    /**
+     * Write the key of a member, the value must be written next.
+     * @param key The key.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter key(String key) throws IOException
+    {
+        if (_afterKey)
+            throw new IllegalStateException(
+                "The value of the previous key isn't written.");
+        beforeValue();
+        char q = key.indexOf('"') < 0 ? '"' : '\'';
+        put(q);
+        put(key);
+        put(q);
+        put(':');
+        _afterKey = true;
+        return this;
+    }
+
+    /**
+     * Write a native value as it is, the caller is responsible for its
+     * format, a string must be quoted and escaped already.
+     * @param raw The raw value.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter value(String raw) throws IOException
+    {
+        beforeValue();
+        put(raw == null ? "null" : raw);
+        return this;
+    }
+
+    /**
+     * Write a string value, it is quoted by '"' and escaped.
+     * @param s The string, null is written as a null literal.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter string(String s) throws IOException
+    {
+        beforeValue();
+        if (s == null) {
+            put("null");
+            return this;
+        }
+        put('"');
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  put('\\'); put('"'); break;
+                case '\\': put('\\'); put('\\'); break;
+                case '\n': put('\\'); put('n'); break;
+                case '\r': put('\\'); put('r'); break;
+                case '\t': put('\\'); put('t'); break;
+                case '\b': put('\\'); put('b'); break;
+                case '\f': put('\\'); put('f'); break;
+                default:
+                    if (c < 0x20) {
+                        put("\\u00");
+                        put(HEX[c >> 4]);
+                        put(HEX[c & 0xF]);
+                    } else {
+                        put(c);
+                    }
+            }
+        }
+        put('"');
+        return this;
+    }
+
+    /**
+     * Write a long number.
+     * @param v The number.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter value(long v) throws IOException
+    {
+        return value(Long.toString(v));
+    }
+
+    /**
+     * Write a double number.
+     * @param v The number, it must be finite.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter value(double v) throws IOException
+    {
+        if (Double.isNaN(v) || Double.isInfinite(v))
+            throw new IllegalArgumentException(
+                "The number can't be written to json: " + v);
+        return value(Double.toString(v));
+    }
+
+    /**
+     * Write a boolean literal.
+     * @param v The boolean value.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter value(boolean v) throws IOException
+    {
+        return value(v ? "true" : "false");
+    }
+
+    /**
+     * Write a null literal.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter nullValue() throws IOException
+    {
+        return value((String) null);
+    }
+
+    ////////////////////////////////////////////////////////////////
+    //
+    // Trees and readers
+    //
+
+    /**
+     * Write an expression and all expressions in it.
+     * @param e The expression.
+     * @return The object is this-self.
+     * @throws IOException
+     */
+    public JSONWriter write(SimpleJSON.Expression e) throws IOException
+    {
+        if (e instanceof SimpleJSON.JSONExpr) {
+            beginObject();
+            for (Map.Entry<String, SimpleJSON.Expression> m
+                : ((SimpleJSON.JSONExpr) e).getMembers().entrySet()) {
+                key(m.getKey());
+                write(m.getValue());
+            }
+            endObject();
+        } else if (e instanceof SimpleJSON.ArrayExp) {
+            beginArray();
+            List<SimpleJSON.Expression> members
+                = ((SimpleJSON.ArrayExp) e).getMembers();
+            for (SimpleJSON.Expression m : members) write(m);
+            endArray();
+        } else {
+            value(e.toString());
+        }
+        return this;
+    }
+
+    /**
+     * Write the value at cursor of a reader. When the cursor is at the
+     * beginning of a container, the whole container is copied and the
+     * cursor moves to the end of it. The empty members of arrays are
+     * dropped as SimpleJSON does, an array member is written when it has
+     * anything but empty members, so the begin of a container in an array
+     * is delayed until its first member is written.
+     * @param reader The reader, nextToken must be called already.
+     * @return The object is this-self.
+     * @throws IOException
+     * @throws SimpleJSON.JSONFormatException When the source isn't a json
+     * text.
+     */
+    public JSONWriter copy(JSONReader reader)
+        throws IOException, SimpleJSON.JSONFormatException
+    {
+        int level = 0;
+        // The containers below the level written are delayed.
+        int written = 0;
+        boolean[] objects = new boolean[16];
+        String key = null;
+        JSONReader.Token token = reader.currentToken();
+        for (;;) {
+            boolean inArray = level > 0 && !objects[level - 1];
+            switch (token) {
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    if (level == objects.length)
+                        objects = Arrays.copyOf(objects, level * 2);
+                    objects[level] = token == JSONReader.Token.BEGIN_OBJECT;
+                    if (!inArray) {
+                        written = open(objects, written, level);
+                        if (key != null) key(key);
+                        if (objects[level]) beginObject();
+                        else beginArray();
+                        written = level + 1;
+                    }
+                    level++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    if (level == 0) throw notAtValue(token);
+                    level--;
+                    if (written > level) {
+                        if (objects[level]) endObject();
+                        else endArray();
+                        written = level;
+                    }
+                    break;
+                case VALUE:
+                    String raw = reader.rawValue();
+                    if (!inArray || (raw != null && !raw.isEmpty())) {
+                        written = open(objects, written, level);
+                        if (key != null) key(key);
+                        value(raw);
+                    }
+                    break;
+                default:
+                    throw notAtValue(token);
+            }
+            if (level == 0) return this;
+
+            token = reader.nextToken();
+            key = token == JSONReader.Token.BEGIN_OBJECT
+                || token == JSONReader.Token.BEGIN_ARRAY
+                || token == JSONReader.Token.VALUE ? reader.currentKey() : null;
+        }
+    }
+
+    /**
+     * Write the begins of the delayed containers below a level.
+     */
+    private int open(boolean[] objects, int written, int level) throws IOException
+    {
+        for (; written < level; written++) {
+            if (objects[written]) beginObject();
+            else beginArray();
+        }
+        return written;
+    }
+
+    private static IllegalStateException notAtValue(JSONReader.Token token)
+    {
+        return new IllegalStateException(
+            "The cursor of reader isn't at a value but " + token);
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        if (_sb != null) return;
+        flushBuffer();
+        if (_writer != null) _writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        flush();
+        if (_appendable instanceof Closeable) ((Closeable) _appendable).close();
+    }
+}
@@ -1,8 +1,17 @@
 package name.sayid.sql;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Make a serial values which are from a result set.
@@ -11,6 +20,10 @@ import java.util.List;
 public class MakeValues4ResultSet<T> {
     private ResultSet _resultSet;
 
+    private PreparedStatement _statement;
+
+    private int _fetchSize = 0;
+
     private final Class<T> _clazz;
 
     /**
@@ -22,17 +35,85 @@ public class MakeValues4ResultSet<T> {
     }
 
     /**
-     * Input a result set for making action.
+     * Input a result set for making action. The statement made by a former
+     * {@link #query} is closed, unless its values are made by an iterator.
      * @param resultSet The result set from making.
      * @return The object is this-self.
      */
     public MakeValues4ResultSet
     set(ResultSet resultSet)
     {
+        try {
+            closeStatement();
+        } catch (SQLException ex) {
+            throw new IllegalStateException(new ValueIllegal(ex));
+        }
         _resultSet = resultSet;
         return this;
     }
 
+    /**
+     * Run a query by a forward only and read only cursor, with the fetch
+     * size of this object, and take its result set for making action. The
+     * statement is closed with the result set, by makeValues, or by the
+     * stream or the iterator when they are completed or closed. The
+     * statement made by a former query is closed first.
+     * <p>
+     *     Drivers keep the rows in memory by default. PostgreSQL fetches the
+     *     rows by a cursor when the fetch size is positive and the auto
+     *     commit is off; MySQL fetches them one by one when the fetch size
+     *     is Integer.MIN_VALUE, or by a cursor when useCursorFetch is set.
+     * </p>
+     * @param connection The connection to the database.
+     * @param sql The query sentence.
+     * @param parameters The parameters of the sentence, bound by setObject.
+     * @return The object is this-self.
+     * @throws SQLException
+     */
+    public MakeValues4ResultSet<T>
+    query(Connection connection, String sql, Object... parameters) throws SQLException
+    {
+        closeStatement();
+        var statement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            if (_fetchSize != 0) statement.setFetchSize(_fetchSize);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            _resultSet = statement.executeQuery();
+        } catch (SQLException ex) {
+            statement.close();
+            throw ex;
+        }
+        _statement = statement;
+        return this;
+    }
+
+    /**
+     * Set the fetch size hint, it is given to the statement made by
+     * {@link #query}, and to the result set when a stream or an iterator
+     * is made. 0 means the default of the driver.
+     * @param fetchSize The count of rows fetched at once.
+     * @return The object is this-self.
+     */
+    public MakeValues4ResultSet<T>
+    setFetchSize(int fetchSize)
+    {
+        _fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * The getter of fetchSize property.
+     * @return The fetch size hint.
+     */
+    public int
+    getFetchSize()
+    {
+        return _fetchSize;
+    }
+
     /**
      * The getter of resultSet property.
      * @return
@@ -44,7 +125,8 @@ public class MakeValues4ResultSet<T> {
     }
 
     /**
-     * Set the all values in the result set to a list object.
+     * Set the all values in the result set to a list object. The result
+     * set, and the statement made by {@link #query}, are closed after it.
      * @return The list object contains all values in result set.
      * @throws ValueIllegal
      */
@@ -52,10 +134,12 @@ public class MakeValues4ResultSet<T> {
     {
         var ret = new LinkedList<T>();
         var maker = new ValueMaker4Record<T>(_clazz);
-        try {
-            var record = new Record();
-            while (_resultSet.next()) {
-                record.setCurrent(_resultSet);
+        var statement = _statement;
+        _statement = null;
+        try (statement; var resultSet = _resultSet) {
+            var record = new Record(true);
+            while (resultSet.next()) {
+                record.setCurrent(resultSet);
                 ret.add(maker.setRecord(record).makeValue());
             }
             return ret;
@@ -63,4 +147,119 @@ public class MakeValues4ResultSet<T> {
             throw new ValueIllegal(ex);
         }
     }
+
+    /**
+     * Make the values in the result set one by one, as an iterator. A row is
+     * read when the iterator is moved to it, so the memory doesn't grow with
+     * the count of rows. The result set, and the statement made by
+     * {@link #query}, are closed when the rows are exhausted or an error
+     * happens, or when the iterator is closed. An error is thrown as an
+     * IllegalStateException caused by the ValueIllegal.
+     * @return The iterator of values.
+     * @throws ValueIllegal When the fetch hints can't be set.
+     */
+    public RowIterator
+    iterator() throws ValueIllegal
+    {
+        try {
+            if (_fetchSize != 0) _resultSet.setFetchSize(_fetchSize);
+            if (_resultSet.getType() == ResultSet.TYPE_FORWARD_ONLY)
+                _resultSet.setFetchDirection(ResultSet.FETCH_FORWARD);
+        } catch (SQLException ex) {
+            throw new ValueIllegal(ex);
+        }
+        // The statement is closed by the iterator.
+        var it = new RowIterator(_resultSet, _statement);
+        _statement = null;
+        return it;
+    }
+
+    /**
+     * Make the values in the result set one by one, as a sequential stream,
+     * as {@link #iterator()} does. The resources are closed when the stream
+     * is closed, so use it in a try-with-resources statement when it may
+     * not be consumed completely.
+     * @return The stream of values.
+     * @throws ValueIllegal When the fetch hints can't be set.
+     */
+    public Stream<T>
+    stream() throws ValueIllegal
+    {
+        var it = iterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(it::close);
+    }
+
+    private void closeStatement() throws SQLException
+    {
+        var statement = _statement;
+        _statement = null;
+        if (statement != null) statement.close();
+    }
+
+    /**
+     * The iterator makes the values in a result set on demand.
+     */
+    public final class RowIterator implements Iterator<T>, AutoCloseable {
+        private final ResultSet _rs;
+        private final PreparedStatement _ps;
+        private final Record _record = new Record(true);
+        private final ValueMaker4Record<T> _maker = new ValueMaker4Record<>(_clazz);
+        private T _next;
+        private boolean _closed = false;
+
+        private RowIterator(ResultSet rs, PreparedStatement ps)
+        {
+            _rs = rs;
+            _ps = ps;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (_next != null) return true;
+            if (_closed) return false;
+            try {
+                if (!_rs.next()) {
+                    close();
+                    return false;
+                }
+                _record.setCurrent(_rs);
+                _next = _maker.setRecord(_record).makeValue();
+                return true;
+            } catch (ValueIllegal ex) {
+                close();
+                throw new IllegalStateException(ex);
+            } catch (Exception ex) {
+                close();
+                throw new IllegalStateException(new ValueIllegal(ex));
+            }
+        }
+
+        @Override
+        public T next()
+        {
+            if (!hasNext()) throw new NoSuchElementException();
+            T v = _next;
+            _next = null;
+            return v;
+        }
+
+        /**
+         * Close the result set, and the statement made by query.
+         */
+        @Override
+        public void close()
+        {
+            if (_closed) return;
+            _closed = true;
+            _next = null;
+            try (_ps) {
+                _rs.close();
+            } catch (SQLException ex) {
+                throw new IllegalStateException(new ValueIllegal(ex));
+            }
+        }
+    }
 }
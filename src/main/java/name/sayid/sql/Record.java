@@ -6,6 +6,11 @@ import java.util.*;
 
 /**
  * The record object is a metadata for one result set from a sql statement.
+ * <p>
+ *     The metadata is retrieved once for a result set: when the next row of
+ *     the same result set is set, only the values are read again. The
+ *     columns can be accessed by their indexes, from 0.
+ * </p>
  */
 public class Record {
     ResultSet _resultSet;
@@ -15,6 +20,27 @@ public class Record {
     String[]  _typeNames;
     Integer[] _types;
 
+    private final boolean _reuseValues;
+    private Map<String, Integer> _indexes;
+
+    /**
+     * Constructor, every row has its own values, the maps gained from a row
+     * aren't changed by the next rows.
+     */
+    public Record() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     * @param reuseValues Whether the rows of a result set share a buffer of
+     *                    values. When it is true, the next row overwrites the
+     *                    values, and the maps gained from the previous row.
+     */
+    public Record(boolean reuseValues) {
+        _reuseValues = reuseValues;
+    }
+
     /**
      * Set result set object,  The metadata will be retrieved from it.
      * @param _resultSet, It will be used to retrieve metadata.
@@ -22,37 +48,153 @@ public class Record {
      * @throws SQLException
      */
     public Record setCurrent(ResultSet _resultSet) throws SQLException {
-        var metadata = _resultSet.getMetaData();
-        int len = metadata.getColumnCount();
-        _names      = new String[len];
-        _values     = new String[len];
-        _typeNames  = new String[len];
-        _types      = new Integer[len];
-        for(int i = 0; i < len ; i++) {
-            int indx = i + 1;
-            var name     = metadata.getColumnName(indx);
-            var typeName = metadata.getColumnTypeName(indx);
-            var type     = metadata.getColumnType(indx);
-            var value    = _resultSet.getObject(indx).toString();
-
-            _names[i]     = name;
-            _values[i]    = value;
-            _typeNames[i] = typeName;
-            _types[i]     = type;
+        if (this._resultSet != _resultSet || _names == null) {
+            var metadata = _resultSet.getMetaData();
+            int len = metadata.getColumnCount();
+            _names      = new String[len];
+            _values     = new String[len];
+            _typeNames  = new String[len];
+            _types      = new Integer[len];
+            _indexes    = new HashMap<>(len * 2);
+            for(int i = 0; i < len ; i++) {
+                int indx = i + 1;
+                _names[i]     = metadata.getColumnName(indx);
+                _typeNames[i] = metadata.getColumnTypeName(indx);
+                _types[i]     = metadata.getColumnType(indx);
+                _indexes.putIfAbsent(_names[i], i);
+            }
+            this._resultSet = _resultSet;
+        } else if (!_reuseValues) {
+            _values = new String[_names.length];
+        }
+        for(int i = 0; i < _values.length; i++) {
+            var value  = _resultSet.getObject(i + 1);
+            _values[i] = value == null ? null : value.toString();
         }
         return this;
     }
 
+    /**
+     * The count of columns.
+     * @return The count of columns.
+     */
+    public int
+    getColumnCount()
+    {
+        return _names.length;
+    }
+
+    /**
+     * The index of a column.
+     * @param name The column name.
+     * @return The index of the first column has the name, -1 when there
+     * isn't.
+     */
+    public int
+    indexOf(String name)
+    {
+        Integer i = _indexes.get(name);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * The column name at an index.
+     * @param index The index, from 0.
+     * @return The column name.
+     */
+    public String
+    getName(int index)
+    {
+        return _names[index];
+    }
+
+    /**
+     * The field value at an index.
+     * @param index The index, from 0.
+     * @return The field value, null for a sql null.
+     */
+    public String
+    getValue(int index)
+    {
+        return _values[index];
+    }
+
+    /**
+     * The column type name at an index.
+     * @param index The index, from 0.
+     * @return The column type name.
+     */
+    public String
+    getTypeName(int index)
+    {
+        return _typeNames[index];
+    }
+
+    /**
+     * The column type at an index.
+     * @param index The index, from 0.
+     * @return The column type, a constant of java.sql.Types.
+     */
+    public int
+    getType(int index)
+    {
+        return _types[index];
+    }
+
     private <T> Map<String, T> makeMap(String[] ks, T[] vs) {
+        var indexes = _indexes;
         return new AbstractMap<String, T>() {
+            @Override
+            public T get(Object key) {
+                Integer i = indexes.get(key);
+                return i == null ? null : vs[i];
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return indexes.containsKey(key);
+            }
+
+            @Override
+            public int size() {
+                return indexes.size();
+            }
+
             @Override
             public Set<Entry<String, T>> entrySet() {
-                int len = ks.length;
-                Entry<String, T> entries[] = new Entry[len];
-                for(int i = 0; i < len; i++) {
-                    entries[i] = new SimpleImmutableEntry(ks[i], vs[i]);
-                }
-                return Set.of(entries);
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, T>> iterator() {
+                        // The columns in order, a name repeated by a later
+                        // column is given by its first column.
+                        return new Iterator<>() {
+                            private int _next = skip(0);
+
+                            private int skip(int i) {
+                                while (i < ks.length && indexes.get(ks[i]) != i) i++;
+                                return i;
+                            }
+
+                            @Override
+                            public boolean hasNext() {
+                                return _next < ks.length;
+                            }
+
+                            @Override
+                            public Entry<String, T> next() {
+                                if (!hasNext()) throw new NoSuchElementException();
+                                int i = _next;
+                                _next = skip(i + 1);
+                                return new SimpleImmutableEntry<>(ks[i], vs[i]);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return indexes.size();
+                    }
+                };
             }
         };
     }
@@ -0,0 +1,460 @@
+package name.sayid.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The record batch reads rows of a result set by batches into typed column
+ * vectors. An integer column is read into a long[], a floating column into
+ * a double[], and the other columns into dictionary encoded strings, every
+ * column has a bitmap of its null values. So the aggregations and mappings
+ * over a batch run on primitive arrays, without boxing every value as a
+ * String as Record does.
+ * <p>
+ *     The metadata is retrieved once for a result set, the vectors are
+ *     allocated once for the capacity and reused by the next batches, so the
+ *     memory doesn't grow with the count of rows. The values of a batch are
+ *     overwritten by the next batch.
+ * </p>
+ * <p>
+ *     DECIMAL and NUMERIC columns without a scale and with at most 18 digits
+ *     are read as longs, the others are read as strings to keep their exact
+ *     values.
+ * </p>
+ */
+public class RecordBatch {
+    /**
+     * The kinds of column vectors.
+     */
+    public enum Kind {
+        LONG, DOUBLE, STRING
+    }
+
+    private final int _capacity;
+    private ResultSet _resultSet;
+    private Column[] _columns;
+    private Map<String, Integer> _indexes;
+    private int _size = 0;
+
+    /**
+     * Constructor.
+     * @param capacity The most rows of a batch.
+     */
+    public RecordBatch(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        _capacity = capacity;
+    }
+
+    /**
+     * Read the next rows of a result set, no more than the capacity.
+     * @param resultSet The result set, it is moved by next().
+     * @return Whether there is any row read, false when the result set is
+     * exhausted.
+     * @throws SQLException
+     */
+    public boolean read(ResultSet resultSet) throws SQLException {
+        if (_resultSet != resultSet || _columns == null) {
+            var metadata = resultSet.getMetaData();
+            int len = metadata.getColumnCount();
+            _columns = new Column[len];
+            _indexes = new HashMap<>(len * 2);
+            for (int i = 0; i < len; i++) {
+                _columns[i] = Column.of(metadata, i + 1, _capacity);
+                _indexes.putIfAbsent(_columns[i].name, i);
+            }
+            _resultSet = resultSet;
+        }
+        for (Column c : _columns) c.clear();
+        int row = 0;
+        while (row < _capacity && resultSet.next()) {
+            for (Column c : _columns) c.read(resultSet, row);
+            row++;
+        }
+        _size = row;
+        return row > 0;
+    }
+
+    /**
+     * The count of rows in the batch.
+     * @return The count of rows.
+     */
+    public int
+    size()
+    {
+        return _size;
+    }
+
+    /**
+     * The most rows of a batch.
+     * @return The capacity.
+     */
+    public int
+    getCapacity()
+    {
+        return _capacity;
+    }
+
+    /**
+     * The count of columns.
+     * @return The count of columns.
+     */
+    public int
+    getColumnCount()
+    {
+        return _columns.length;
+    }
+
+    /**
+     * The index of a column.
+     * @param name The column name.
+     * @return The index of the first column has the name, -1 when there
+     * isn't.
+     */
+    public int
+    indexOf(String name)
+    {
+        Integer i = _indexes.get(name);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * The column at an index.
+     * @param index The index, from 0.
+     * @return The column.
+     */
+    public Column
+    column(int index)
+    {
+        return _columns[index];
+    }
+
+    /**
+     * The column has a name.
+     * @param name The column name.
+     * @return The first column has the name.
+     * @throws IllegalArgumentException When there isn't the column.
+     */
+    public Column
+    column(String name)
+    {
+        int i = indexOf(name);
+        if (i < 0) throw new IllegalArgumentException("There isn't the column: " + name);
+        return _columns[i];
+    }
+
+    /**
+     * A column vector of a batch, the rows are indexed from 0 to the size of
+     * the batch.
+     */
+    public abstract static class Column {
+        /** The column name. */
+        public final String name;
+        /** The column type, a constant of java.sql.Types. */
+        public final int type;
+        /** The column type name. */
+        public final String typeName;
+        /** The index of the column in the result set, from 1. */
+        final int _index;
+        /** The bitmap of null values, a bit for a row. */
+        final long[] _nulls;
+
+        private Column(String name, int type, String typeName, int index, int capacity) {
+            this.name = name;
+            this.type = type;
+            this.typeName = typeName;
+            _index = index;
+            _nulls = new long[(capacity + 63) >>> 6];
+        }
+
+        private static Column of(ResultSetMetaData metadata, int index, int capacity)
+                throws SQLException {
+            var name = metadata.getColumnName(index);
+            var type = metadata.getColumnType(index);
+            var typeName = metadata.getColumnTypeName(index);
+            switch (type) {
+                case Types.BIT:
+                    // PostgreSQL reports booleans as BIT, MySQL BIT(1) is a
+                    // boolean too, as Record prints them.
+                    if (metadata.getPrecision(index) <= 1)
+                        return new LongColumn(name, type, typeName, index, capacity, true);
+                    return new LongColumn(name, type, typeName, index, capacity, false);
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return new LongColumn(name, type, typeName, index, capacity, false);
+                case Types.BOOLEAN:
+                    return new LongColumn(name, type, typeName, index, capacity, true);
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    int precision = metadata.getPrecision(index);
+                    if (metadata.getScale(index) == 0 && precision > 0 && precision <= 18)
+                        return new LongColumn(name, type, typeName, index, capacity, false);
+                    return new StringColumn(name, type, typeName, index, capacity);
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return new DoubleColumn(name, type, typeName, index, capacity);
+                default:
+                    return new StringColumn(name, type, typeName, index, capacity);
+            }
+        }
+
+        /**
+         * The kind of the vector.
+         * @return The kind.
+         */
+        public abstract Kind
+        getKind();
+
+        /**
+         * Whether a value is a sql null.
+         * @param row The row index.
+         * @return Whether the value is null.
+         */
+        public boolean
+        isNull(int row)
+        {
+            return (_nulls[row >>> 6] & 1L << row) != 0;
+        }
+
+        /**
+         * The text of a value, as Record gives.
+         * @param row The row index.
+         * @return The text, null for a sql null.
+         */
+        public abstract String
+        getString(int row);
+
+        void clear() {
+            Arrays.fill(_nulls, 0);
+        }
+
+        void setNull(int row) {
+            _nulls[row >>> 6] |= 1L << row;
+        }
+
+        abstract void read(ResultSet rs, int row) throws SQLException;
+    }
+
+    /**
+     * A vector of integers, a null value is 0 in the values.
+     */
+    public static final class LongColumn extends Column {
+        private final long[] _values;
+        private final boolean _isBoolean;
+
+        private LongColumn(String name, int type, String typeName, int index, int capacity,
+                           boolean isBoolean) {
+            super(name, type, typeName, index, capacity);
+            _values = new long[capacity];
+            _isBoolean = isBoolean;
+        }
+
+        @Override
+        public Kind
+        getKind()
+        {
+            return Kind.LONG;
+        }
+
+        /**
+         * The values of the batch, the array is shared by the batches and
+         * has the capacity of the batch.
+         * @return The values.
+         */
+        public long[]
+        values()
+        {
+            return _values;
+        }
+
+        /**
+         * A value.
+         * @param row The row index.
+         * @return The value, 0 for a sql null.
+         */
+        public long
+        getLong(int row)
+        {
+            return _values[row];
+        }
+
+        @Override
+        public String
+        getString(int row)
+        {
+            if (isNull(row)) return null;
+            if (_isBoolean) return _values[row] != 0 ? "true" : "false";
+            return Long.toString(_values[row]);
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException {
+            long v = _isBoolean ? (rs.getBoolean(_index) ? 1 : 0) : rs.getLong(_index);
+            if (rs.wasNull()) {
+                setNull(row);
+                v = 0;
+            }
+            _values[row] = v;
+        }
+    }
+
+    /**
+     * A vector of floating numbers, a null value is 0 in the values. The
+     * values of REAL columns are widened to doubles.
+     */
+    public static final class DoubleColumn extends Column {
+        private final double[] _values;
+
+        private DoubleColumn(String name, int type, String typeName, int index, int capacity) {
+            super(name, type, typeName, index, capacity);
+            _values = new double[capacity];
+        }
+
+        @Override
+        public Kind
+        getKind()
+        {
+            return Kind.DOUBLE;
+        }
+
+        /**
+         * The values of the batch, the array is shared by the batches and
+         * has the capacity of the batch.
+         * @return The values.
+         */
+        public double[]
+        values()
+        {
+            return _values;
+        }
+
+        /**
+         * A value.
+         * @param row The row index.
+         * @return The value, 0 for a sql null.
+         */
+        public double
+        getDouble(int row)
+        {
+            return _values[row];
+        }
+
+        @Override
+        public String
+        getString(int row)
+        {
+            if (isNull(row)) return null;
+            // A REAL value is printed as the float read by the driver.
+            double v = _values[row];
+            return type == Types.REAL ? Float.toString((float) v) : Double.toString(v);
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException {
+            double v = rs.getDouble(_index);
+            if (rs.wasNull()) {
+                setNull(row);
+                v = 0;
+            }
+            _values[row] = v;
+        }
+    }
+
+    /**
+     * A vector of dictionary encoded strings: every row has the code of its
+     * string in the dictionary of the batch, the same strings have the same
+     * code. A null value has the code -1.
+     */
+    public static final class StringColumn extends Column {
+        private final int[] _codes;
+        private final List<String> _dictionary = new ArrayList<>();
+        private final Map<String, Integer> _codesOf = new HashMap<>();
+
+        private StringColumn(String name, int type, String typeName, int index, int capacity) {
+            super(name, type, typeName, index, capacity);
+            _codes = new int[capacity];
+        }
+
+        @Override
+        public Kind
+        getKind()
+        {
+            return Kind.STRING;
+        }
+
+        /**
+         * The codes of the batch, the array is shared by the batches and
+         * has the capacity of the batch.
+         * @return The codes.
+         */
+        public int[]
+        codes()
+        {
+            return _codes;
+        }
+
+        /**
+         * The distinct strings of the batch, indexed by their codes.
+         * @return The dictionary.
+         */
+        public List<String>
+        dictionary()
+        {
+            return Collections.unmodifiableList(_dictionary);
+        }
+
+        /**
+         * The code of a value.
+         * @param row The row index.
+         * @return The code, -1 for a sql null.
+         */
+        public int
+        getCode(int row)
+        {
+            return _codes[row];
+        }
+
+        @Override
+        public String
+        getString(int row)
+        {
+            int code = _codes[row];
+            return code < 0 ? null : _dictionary.get(code);
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            _dictionary.clear();
+            _codesOf.clear();
+        }
+
+        @Override
+        void read(ResultSet rs, int row) throws SQLException {
+            var v = rs.getString(_index);
+            if (v == null) {
+                setNull(row);
+                _codes[row] = -1;
+                return;
+            }
+            Integer code = _codesOf.get(v);
+            if (code == null) {
+                code = _dictionary.size();
+                _dictionary.add(v);
+                _codesOf.put(v, code);
+            }
+            _codes[row] = code;
+        }
+    }
+}
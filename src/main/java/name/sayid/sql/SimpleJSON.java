@@ -1,6 +1,16 @@
 package name.sayid.sql;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,7 +28,6 @@ public class SimpleJSON
 {
     private final static Logger L
         = Logger.getLogger(SimpleJSON.class.getName());
-    private final static Set EMPT_CHARS = Set.of('\r', '\n', '\t', ' ');
 
     /**
      * 对于无法完成解析的字符串，会抛出这个错误。
@@ -76,62 +85,33 @@ public class SimpleJSON
      */
     public static class NativeExp implements Expression
     {
-        private String _content = null;
-
-        private static int parser(String s, int entry, NativeExp exp)
-            throws JSONFormatException
+        /**
+         * 原生数据的类型，在解析时根据原始字符串的形式判断。
+         */
+        public enum Type
         {
-            StringBuilder sb = new StringBuilder();
-            int i = next(s, entry);
-            char c_ = s.charAt(i);
-            boolean isQtm = c_ == '\"';
-            boolean isQts = c_ == '\'';
-            boolean isEscape = false;
-            if (isQtm || isQts){
-                sb.append(c_);
-                i++;
-            }
-            for(; i < s.length(); i++)
-            {
-                char c = s.charAt(i);
-                if (!isQtm && !isQts) {
-                    if (Set.of( '{' ,'[').contains(c)) {
-                        throw new JSONFormatException(
-                                "JSonExpresion has illigual character at "
-                                        + (i - 1));
-                    } else if (Set.of(',', '}', ']').contains(c)) {
-                        exp._content = sb.toString();
-                        return --i;
-                    }
-                    sb.append(c);
-                }
-                else {
-                    if (! isEscape){
-                        if ((c == '\"' && isQtm)||(c=='\'' && isQts)) {
-                            sb.append(c);
-                            int n = next(s, ++i);
-                            c = s.charAt(n);
-                            if (! Set.of(',', '}', ']').contains(c))
-                                throw new JSONFormatException("JSonExpresion" +
-                                        " has illigual character at " + n);
-                            else {
-                                exp._content = sb.toString();
-                                return --n;
-                            }
-                        }
-                        isEscape = c == '\\';
-                        sb.append(c);
-                    }
-                    else {
-                        sb.append(c);
-                        isEscape = false;
-                    }
-                }
-            }
-            throw new JSONFormatException (
-                "Native expression is unterminate.");
+            /** 被引号包围的字符串。 */
+            STRING,
+            /** 以数字、‘-’、‘+’ 或 ‘.’ 开始的数据。 */
+            NUMBER,
+            /** true 或 false。 */
+            BOOLEAN,
+            /** null。 */
+            NULL,
+            /** 其它没有被引号包围的数据，以及空的数据。 */
+            RAW
         }
 
+        private static final byte LONG_DECODED = 1;
+        private static final byte DOUBLE_DECODED = 2;
+
+        private String _content = null;
+        private Type _type = null;
+        private String _string = null;
+        private long _long;
+        private double _double;
+        private volatile byte _decoded = 0;
+
         /**
          * 将表达式序列化成字符串，由于是原始表达式，所以输出与
          * 不做任何处理。
@@ -157,6 +137,214 @@ public class SimpleJSON
         {
             return _content;
         }
+
+        /**
+         * 设置原始字符串，同时判断数据的类型。
+         */
+        void setContent(String content)
+        {
+            _content = content;
+            _type = typeOf(content);
+        }
+
+        /**
+         * 数据的类型。
+         * @return 返回数据的类型。
+         */
+        public Type getType()
+        {
+            Type type = _type;
+            if (type == null) _type = type = typeOf(getValue());
+            return type;
+        }
+
+        /**
+         * 判断数据是不是 null。
+         * @return 数据是没有被引号包围的 null 时返回 true。
+         */
+        public boolean isNull()
+        {
+            return getType() == Type.NULL;
+        }
+
+        /**
+         * 把数据作为 long 类型的整数读出。数字直接从原始字符串中解析，被引号包围的
+         * 数字也可以读出。解析的结果会被缓存。
+         * @return 返回整数。
+         * @throws NumberFormatException 数据不是 long 类型的整数。
+         */
+        public long asLong()
+        {
+            if ((_decoded & LONG_DECODED) != 0) return _long;
+            String s = getValue();
+            Type type = getType();
+            if (type != Type.NUMBER && type != Type.STRING)
+                throw new NumberFormatException("The value isn't a number: " + s);
+            long v = parseLong(s);
+            _long = v;
+            _decoded |= LONG_DECODED;
+            return v;
+        }
+
+        /**
+         * 把数据作为 double 类型的数字读出。整数直接从原始字符串中解析，被引号
+         * 包围的数字也可以读出。解析的结果会被缓存。
+         * @return 返回数字。
+         * @throws NumberFormatException 数据不是数字。
+         */
+        public double asDouble()
+        {
+            if ((_decoded & DOUBLE_DECODED) != 0) return _double;
+            String s = getValue();
+            Type type = getType();
+            if (type != Type.NUMBER && type != Type.STRING)
+                throw new NumberFormatException("The value isn't a number: " + s);
+            double v;
+            int start = start(s, true), end = end(s, true);
+            if (isInteger(s, start, end) && end - start < 19) {
+                v = parseLong(s);
+            } else {
+                v = Double.parseDouble(start == 0 && end == s.length() ? s
+                    : s.substring(start, end));
+            }
+            _double = v;
+            _decoded |= DOUBLE_DECODED;
+            return v;
+        }
+
+        /**
+         * 把数据作为布尔值读出。
+         * @return 返回布尔值。
+         * @throws IllegalStateException 数据不是 true 或 false。
+         */
+        public boolean asBoolean()
+        {
+            if (getType() != Type.BOOLEAN)
+                throw new IllegalStateException(
+                    "The value isn't a boolean: " + getValue());
+            String s = getValue();
+            return s.charAt(start(s, true)) == 't';
+        }
+
+        /**
+         * 把数据作为字符串读出。被引号包围的字符串去掉引号并转换其中的转义符，
+         * 没有被引号包围的数据去掉前后的空白符，null 读出为 null。结果会被缓存。
+         * @return 返回字符串。
+         */
+        public String asString()
+        {
+            String v = _string;
+            if (v != null) return v;
+            Type type = getType();
+            if (type == Type.NULL) return null;
+            String s = getValue();
+            if (type == Type.STRING) {
+                int start = start(s, false), end = end(s, false);
+                v = s.indexOf('\\', start) < 0 ? s.substring(start, end)
+                    : JSONCharTokenizer.unescape(s.toCharArray(), start, end);
+            } else {
+                v = s == null ? "" : s.strip();
+            }
+            _string = v;
+            return v;
+        }
+
+        /**
+         * 根据原始字符串的形式判断数据的类型。
+         */
+        static Type typeOf(String s)
+        {
+            if (s == null) return Type.RAW;
+            int len = s.length();
+            int i = 0;
+            while (i < len && JSONTokenizer.isBlank(s.charAt(i))) i++;
+            if (i == len) return Type.RAW;
+            char c = s.charAt(i);
+            if (c == '"' || c == '\'') return Type.STRING;
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.')
+                return Type.NUMBER;
+            int end = len;
+            while (JSONTokenizer.isBlank(s.charAt(end - 1))) end--;
+            if (s.startsWith("null", i) && end - i == 4) return Type.NULL;
+            if (s.startsWith("true", i) && end - i == 4) return Type.BOOLEAN;
+            if (s.startsWith("false", i) && end - i == 5) return Type.BOOLEAN;
+            return Type.RAW;
+        }
+
+        /**
+         * 数据去掉空白符和引号后的开始位置。
+         * @param trim 是否去掉引号以内的空白符。
+         */
+        private static int start(String s, boolean trim)
+        {
+            int i = 0;
+            while (i < s.length() && JSONTokenizer.isBlank(s.charAt(i))) i++;
+            if (i < s.length() && (s.charAt(i) == '"' || s.charAt(i) == '\'')) {
+                i++;
+                while (trim && i < s.length() && JSONTokenizer.isBlank(s.charAt(i)))
+                    i++;
+            }
+            return i;
+        }
+
+        /**
+         * 数据去掉空白符和引号后的结束位置。
+         * @param trim 是否去掉引号以内的空白符。
+         */
+        private static int end(String s, boolean trim)
+        {
+            int end = s.length();
+            while (end > 0 && JSONTokenizer.isBlank(s.charAt(end - 1))) end--;
+            if (end > 0 && (s.charAt(end - 1) == '"' || s.charAt(end - 1) == '\'')) {
+                end--;
+                while (trim && end > 0 && JSONTokenizer.isBlank(s.charAt(end - 1)))
+                    end--;
+            }
+            return end;
+        }
+
+        private static boolean isInteger(String s, int start, int end)
+        {
+            if (start < end && (s.charAt(start) == '-' || s.charAt(start) == '+'))
+                start++;
+            if (start >= end) return false;
+            for (int i = start; i < end; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') return false;
+            }
+            return true;
+        }
+
+        /**
+         * 不生成新的字符串，直接从原始字符串中解析整数。
+         */
+        private static long parseLong(String s)
+        {
+            int i = start(s, true), end = end(s, true);
+            boolean negative = false;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negative = s.charAt(i) == '-';
+                i++;
+            }
+            if (i >= end)
+                throw new NumberFormatException("The value isn't a number: " + s);
+
+            long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long multmin = limit / 10;
+            long r = 0;
+            for (; i < end; i++) {
+                int d = s.charAt(i) - '0';
+                if (d < 0 || d > 9 || r < multmin)
+                    throw new NumberFormatException(
+                        "The value isn't a long number: " + s);
+                r *= 10;
+                if (r < limit + d)
+                    throw new NumberFormatException(
+                        "The value isn't a long number: " + s);
+                r -= d;
+            }
+            return negative ? r : -r;
+        }
     }
 
     /**
@@ -165,70 +353,51 @@ public class SimpleJSON
      */
     public static class ArrayExp implements Expression
     {
-        LinkedList<Expression> members = new LinkedList<>();
+        final ArrayList<Expression> members;
+        private volatile Lazy _lazy = null;
 
-        private static int parser(String s, int entry, ArrayExp exp)
-            throws JSONFormatException
+        public ArrayExp()
         {
-            int i = entry;
-            while(i < s.length())
-            {
-                i = next(s, i);
-                assertLen(i, s);
-
-                char c = s.charAt(i);
-                Expression e;
-                if (c == '{') {
-                    e = new JSONExpr();
-                    i = JSONExpr.parser(s, ++i, (JSONExpr)e);
-                }
-                else if (c == '[') {
-                    e = new ArrayExp();
-                    i = ArrayExp.parser(s, ++i, (ArrayExp)e);
-                }
-                else {
-                    e = new NativeExp();
-                    i = NativeExp.parser(s, i, (NativeExp)e);
-                }
+            this(new ArrayList<>());
+        }
 
-                if (!e.isEmpty()) exp.members.add(e);
+        /**
+         * 子类（例如其它数据结构上的视图）可以不使用成员列表，这时传入 null。
+         * @param members 保存成员的列表。
+         */
+        ArrayExp(ArrayList<Expression> members)
+        {
+            this.members = members;
+        }
 
-                i = next(s, ++i);
-                assertLen(i, s);
-                c = s.charAt(i);
-                if (c == ',') {
-                    i++;
-                } else if (c == ']') {
-                    return i;
-                } else {
-                    throw new JSONFormatException(
-                        "When array expression parsering, "
-                            + "There is an unkown charactor at " + i);
+        /**
+         * 延迟解析模式下，成员在第一次被访问时才被解析。
+         * @return 返回全部的表达式成员。
+         */
+        private List<Expression> members()
+        {
+            if (_lazy != null) {
+                synchronized (this) {
+                    Lazy lazy = _lazy;
+                    if (lazy != null) {
+                        lazy.build(this);
+                        _lazy = null;
+                    }
                 }
             }
-
-            throw new JSONFormatException(
-                "Array expression is unterminate.");
+            return members;
         }
 
         @Override
         public String toString()
         {
-            if (members.size() == 0) return "[]";
-            StringBuilder sb = members.stream()
-                .collect( StringBuilder::new
-                    , (b, x)->b.append(x.toString()).append(',')
-                    , (l, r)->l.append(r));
-
-            int len = sb.length();
-            sb.deleteCharAt(len - 1);
-            return "[" + sb.toString() + "]";
+            return JSONWriter.toString(this);
         }
 
         @Override
         public boolean isEmpty()
         {
-            return members.isEmpty();
+            return members().isEmpty();
         }
 
         /**
@@ -237,90 +406,104 @@ public class SimpleJSON
          */
         public List<Expression> getMembers()
         {
-            return Collections.unmodifiableList(members);
+            return Collections.unmodifiableList(members());
         }
     }
 
     /**
      * JSON表达式。每个json数据的跟都是一个json表达式。json表达式的数据被保存在一个
-     * Map结构中。
+     * Map结构中。Map 按照名值对在数据中出现的顺序保存，序列化时保持原来的顺序。
      */
     public static class JSONExpr
         implements Expression
     {
-        private Map<String, Expression> members = new HashMap<>();
+        private final CompactMap<Expression> members;
+        private volatile Lazy _lazy = null;
 
-        public Map<String, Expression> getMembers() {
-            return Collections.unmodifiableMap(members);
+        public JSONExpr()
+        {
+            this(new CompactMap<>());
         }
 
-        public static int parser(String s, int entry, JSONExpr exp)
-            throws JSONFormatException
+        /**
+         * 子类（例如其它数据结构上的视图）可以不使用成员集合，这时传入 null。
+         * @param members 保存名值对的集合。
+         */
+        JSONExpr(CompactMap<Expression> members)
         {
-            int i = next(s, entry);
-            while (i < s.length()) {
-                StringBuilder sb = new StringBuilder();
-                i = recognizeKey(s, i, sb);
-                if (sb.length() == 0)
-                    throw new JSONFormatException(
-                        "The key is empty.");
-
-                i = acrossToExp(s, i);
-                assertLen(i, s);
-
-                char c = s.charAt(i);
+            this.members = members;
+        }
 
-                Expression e;
-                if (c == '{') {
-                    e = new JSONExpr();
-                    i = JSONExpr.parser(s, ++i, (JSONExpr)e);
-                } else if (c == '[') {
-                    e = new ArrayExp();
-                    i = ArrayExp.parser(s, ++i, (ArrayExp)e);
-                } else {
-                    e = new NativeExp();
-                    i = NativeExp.parser(s, i, (NativeExp)e);
+        /**
+         * 延迟解析模式下，成员在第一次被访问时才被解析。
+         * @return 返回全部的名值对。
+         */
+        private CompactMap<Expression> members()
+        {
+            if (_lazy != null) {
+                synchronized (this) {
+                    Lazy lazy = _lazy;
+                    if (lazy != null) {
+                        lazy.build(this);
+                        _lazy = null;
+                    }
                 }
+            }
+            return members;
+        }
 
-                assertLen(i, s);
+        public Map<String, Expression> getMembers() {
+            return Collections.unmodifiableMap(members());
+        }
 
-                exp.members.put(sb.toString(), e);
+        /**
+         * 加入一个名值对，名字已经存在时替换原来的值。供 JSONBuilder 使用。
+         */
+        void put(String key, Expression value)
+        {
+            members().put(key, value);
+        }
 
-                i = next(s, ++i);
-                assertLen(i, s);
-                c = s.charAt(i);
-                if (c == ',') {
-                    i++;
-                } else if (c == '}') {
-                    return i;
-                } else {
-                    throw new JSONFormatException(
-                        "When json expression parsering, "
-                            +" There is an unkown charactor at " + i);
-                }
-            }
-            throw new JSONFormatException(
-                "Array expression isn't terminate.");
+        /**
+         * 所有名值对都加入以后，释放多余的空间。
+         */
+        void trimToSize()
+        {
+            members().trimToSize();
+        }
 
+        /**
+         * 从字符串的某个位置开始解析一个json表达式。入口位置在 ‘{’ 之后。
+         * @param s 被分析的字符串。
+         * @param entry 入口位置。
+         * @param exp 保存解析结果的json表达式。
+         * @return 返回与 ‘{’ 对应的 ‘}’ 所在的位置。
+         * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+         */
+        public static int parser(String s, int entry, JSONExpr exp)
+            throws JSONFormatException
+        {
+            var tokenizer = new JSONCharTokenizer(s, entry - 1, s.length());
+            var reader = new JSONReader(tokenizer);
+            try {
+                reader.nextToken();
+                build(reader, exp);
+            } catch (IOException e) {
+                throw new JSONFormatException(e.getMessage());
+            }
+            return (int) tokenizer.position() - 1;
         }
 
         @Override
         public String toString()
         {
-            StringBuilder sb = members.entrySet().stream()
-                .collect( StringBuilder::new
-                    , (b, x)->b.append(String.format("\"%s\":%s,"
-                                    , x.getKey(), x.getValue()))
-                    , (l, r)->l.append(r));
-
-            sb.deleteCharAt(sb.length() - 1);
-            return sb.insert(0, "{").append("}").toString();
+            return JSONWriter.toString(this);
         }
 
         @Override
         public boolean isEmpty()
         {
-            return members.isEmpty();
+            return members().isEmpty();
         }
 
         /**
@@ -331,7 +514,7 @@ public class SimpleJSON
          */
         public Expression valueOfKey(String key)
         {
-            return members.get(key);
+            return members().get(key);
         }
 
         /**
@@ -340,7 +523,50 @@ public class SimpleJSON
          */
         public Set<String> keys()
         {
-            return members.keySet();
+            return members().keySet();
+        }
+    }
+
+    /**
+     * 延迟解析的容器在数据源中的范围。范围从 ‘{’ 或 ‘[’ 开始，到对应的 ‘}’ 或
+     * ‘]’ 结束。在容器第一次被访问时，范围内的数据才被解析，并且只解析一层，
+     * 其中嵌套的容器仍然是延迟解析的。
+     */
+    static final class Lazy
+    {
+        private final JSONTokenizer _source;
+        private final long _start;
+        private final long _end;
+
+        Lazy(JSONTokenizer source, long start, long end)
+        {
+            _source = source;
+            _start = start;
+            _end = end;
+        }
+
+        void build(JSONExpr exp)
+        {
+            try {
+                var r = new JSONReader(_source.fork(_start, _end));
+                r.nextToken();
+                buildLazy(r, exp);
+            } catch (IOException | JSONFormatException e) {
+                throw new IllegalStateException(
+                    "The lazy expression at " + _start + " is illegal.", e);
+            }
+        }
+
+        void build(ArrayExp exp)
+        {
+            try {
+                var r = new JSONReader(_source.fork(_start, _end));
+                r.nextToken();
+                buildLazy(r, exp);
+            } catch (IOException | JSONFormatException e) {
+                throw new IllegalStateException(
+                    "The lazy expression at " + _start + " is illegal.", e);
+            }
         }
     }
 
@@ -375,10 +601,9 @@ public class SimpleJSON
 
         assertLen(i, s);
 
-        var quoteSet = Set.of('\"', '\'');
         var header = s.charAt(i++);
 
-        if (!quoteSet.contains(header)) {
+        if (header != '\"' && header != '\'') {
             L.log(Level.SEVERE, "Error at :" + i);
             L.log(Level.SEVERE, "The error json str: " + s);
             throw new JSONFormatException("JSON Key mast start with \" or \'");
@@ -425,7 +650,7 @@ public class SimpleJSON
      */
     private static int next(String s, int entry) {
         for(int i = entry; i < s.length(); i++) {
-            if (!EMPT_CHARS.contains(s.charAt(i))) return i;
+            if (!JSONTokenizer.isBlank(s.charAt(i))) return i;
         }
         return s.length();
     }
@@ -440,25 +665,484 @@ public class SimpleJSON
     public static SimpleJSON parser(String s)
         throws JSONFormatException
     {
-        JSONExpr json = new JSONExpr();
-        int i = next(s, 0);
-        assertLen(i, s);
+        try {
+            return parser(new JSONCharTokenizer(s));
+        } catch (IOException e) {
+            throw new JSONFormatException(e.getMessage());
+        }
+    }
+
+    /**
+     * 从一个 Reader 中读取并解析json数据。读取通过一个固定大小的缓冲区进行，不需要
+     * 预先把全部内容读成字符串。该方法不会关闭 Reader。
+     * @param reader 被分析的数据来源。
+     * @return 返回 SimpleJSON实例。
+     * @throws IOException 读取数据时发生的错误。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     */
+    public static SimpleJSON parser(Reader reader)
+        throws IOException, JSONFormatException
+    {
+        return parser(new JSONCharTokenizer(reader));
+    }
+
+    /**
+     * 从一个输入流中读取并解析json数据，数据按 utf-8 编码解读。该方法不会关闭
+     * 输入流。
+     * @param in 被分析的数据来源。
+     * @return 返回 SimpleJSON实例。
+     * @throws IOException 读取数据时发生的错误。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     */
+    public static SimpleJSON parser(InputStream in)
+        throws IOException, JSONFormatException
+    {
+        return parser(new JSONCharTokenizer(in));
+    }
+
+    /**
+     * 直接在 utf-8 编码的字节上解析json数据。结构在字节上识别，原生数据只记录
+     * 它们在缓冲区中的范围，在第一次被访问时才解码成字符串。结果持有缓冲区的
+     * 引用，缓冲区的内容不能再被改变。缓冲区的位置不会改变。
+     * @param buf 保存json数据的缓冲区，从当前位置到界限的内容被解析。
+     * @return 返回 SimpleJSON实例。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     */
+    public static SimpleJSON parser(ByteBuffer buf)
+        throws JSONFormatException
+    {
+        try {
+            return parser(new JSONByteTokenizer(buf));
+        } catch (IOException e) {
+            throw new JSONFormatException(e.getMessage());
+        }
+    }
+
+    /**
+     * 把一个 utf-8 编码的文件映射到内存中进行解析，不需要把文件读成字符串。
+     * @param path 文件的路径。
+     * @return 返回 SimpleJSON实例。
+     * @throws IOException 读取文件时发生的错误。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     */
+    public static SimpleJSON parser(Path path)
+        throws IOException, JSONFormatException
+    {
+        try (var tokenizer = JSONByteTokenizer.map(path)) {
+            return parser(tokenizer);
+        }
+    }
+
+    /**
+     * 通过一个词法分析器构造出SimpleJSON实例。数据必须以 ‘{’ 开始，并且在
+     * 与之对应的 ‘}’ 之后只能有空白符。
+     * @param tokenizer 词法分析器。
+     * @return 返回 SimpleJSON实例。
+     * @throws IOException 读取数据时发生的错误。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     */
+    public static SimpleJSON parser(JSONTokenizer tokenizer)
+        throws IOException, JSONFormatException
+    {
+        return parser(new JSONReader(tokenizer));
+    }
 
-        char c = s.charAt(i++);
-        if (c != '{')
+    /**
+     * 通过一个拉取式的读取器构造出SimpleJSON实例。读取器必须还没有开始移动。
+     * @param reader 读取器。
+     * @return 返回 SimpleJSON实例。
+     * @throws IOException 读取数据时发生的错误。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     */
+    public static SimpleJSON parser(JSONReader reader)
+        throws IOException, JSONFormatException
+    {
+        if (reader.nextToken() != JSONReader.Token.BEGIN_OBJECT)
             throw new JSONFormatException(
                 "JSONValue mast start '{'");
 
-        i = JSONExpr.parser(s, i, json);
-        i = next(s, ++i);
-        if (i < s.length())
+        JSONExpr json = new JSONExpr();
+        build(reader, json);
+        reader.nextToken();
+        return new SimpleJSON(json);
+    }
+
+    /**
+     * 构造json表达式的成员，读取器的位置在 ‘{’ 上。完成后位置在对应的 ‘}’ 上。
+     */
+    private static void build(JSONReader r, JSONExpr exp)
+        throws IOException, JSONFormatException
+    {
+        JSONReader.Token token;
+        while ((token = r.nextToken()) != JSONReader.Token.END_OBJECT) {
+            exp.members.put(r.currentKey(), build(r, token));
+        }
+        exp.members.trimToSize();
+    }
+
+    /**
+     * 构造数组表达式的成员，读取器的位置在 ‘[’ 上。完成后位置在对应的 ‘]’ 上。
+     * 空的成员会被忽略。
+     */
+    private static void build(JSONReader r, ArrayExp exp)
+        throws IOException, JSONFormatException
+    {
+        JSONReader.Token token;
+        while ((token = r.nextToken()) != JSONReader.Token.END_ARRAY) {
+            Expression e = build(r, token);
+            if (!e.isEmpty()) exp.members.add(e);
+        }
+        exp.members.trimToSize();
+    }
+
+    /**
+     * 根据读取器当前的记号构造一个值表达式。
+     */
+    static Expression build(JSONReader r, JSONReader.Token token)
+        throws IOException, JSONFormatException
+    {
+        if (token == JSONReader.Token.BEGIN_OBJECT) {
+            JSONExpr e = new JSONExpr();
+            build(r, e);
+            return e;
+        } else if (token == JSONReader.Token.BEGIN_ARRAY) {
+            ArrayExp e = new ArrayExp();
+            build(r, e);
+            return e;
+        } else {
+            return r.nativeValue();
+        }
+    }
+
+    /**
+     * 延迟解析模式。只有根表达式的名值对被解析，嵌套的json表达式和数组表达式只做
+     * 括号匹配，并记录它们在字符串中的范围。在 valueOfKey 或 getMembers 第一次
+     * 访问它们时才被解析。因此解析的代价与实际访问的数据量相关，而不是与整个
+     * 数据的大小相关。
+     * <p>
+     *     延迟解析的表达式持有字符串的引用。嵌套的部分在被访问之前不做语法检查，
+     *     如果其中有错误，会在访问时抛出 IllegalStateException。
+     * </p>
+     * @param s 被分析的字符串。
+     * @return 返回 SimpleJSON实例。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     */
+    public static SimpleJSON lazyParser(String s)
+        throws JSONFormatException
+    {
+        try {
+            return lazyParser(new JSONCharTokenizer(s));
+        } catch (IOException e) {
+            throw new JSONFormatException(e.getMessage());
+        }
+    }
+
+    /**
+     * 在 utf-8 编码的字节上进行延迟解析。延迟解析的表达式持有缓冲区的引用，在它们
+     * 被访问之前，缓冲区的内容不能被改变。
+     * @param buf 保存json数据的缓冲区，从当前位置到界限的内容被解析。
+     * @return 返回 SimpleJSON实例。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     * @see #lazyParser(String)
+     */
+    public static SimpleJSON lazyParser(ByteBuffer buf)
+        throws JSONFormatException
+    {
+        try {
+            return lazyParser(new JSONByteTokenizer(buf));
+        } catch (IOException e) {
+            throw new JSONFormatException(e.getMessage());
+        }
+    }
+
+    private static SimpleJSON lazyParser(JSONTokenizer tokenizer)
+        throws IOException, JSONFormatException
+    {
+        var reader = new JSONReader(tokenizer);
+        if (reader.nextToken() != JSONReader.Token.BEGIN_OBJECT)
             throw new JSONFormatException(
-                "After " + i
-                    + ", the left charaters can't be explained.");
+                "JSONValue mast start '{'");
 
+        JSONExpr json = new JSONExpr();
+        buildLazy(reader, json);
+        reader.nextToken();
         return new SimpleJSON(json);
     }
 
+    private static void buildLazy(JSONReader r, JSONExpr exp)
+        throws IOException, JSONFormatException
+    {
+        JSONReader.Token token;
+        while ((token = r.nextToken()) != JSONReader.Token.END_OBJECT) {
+            exp.members.put(r.currentKey(), buildLazy(r, token));
+        }
+        exp.members.trimToSize();
+    }
+
+    private static void buildLazy(JSONReader r, ArrayExp exp)
+        throws IOException, JSONFormatException
+    {
+        JSONReader.Token token;
+        while ((token = r.nextToken()) != JSONReader.Token.END_ARRAY) {
+            Expression e = buildLazy(r, token);
+            if (!e.isEmpty()) exp.members.add(e);
+        }
+        exp.members.trimToSize();
+    }
+
+    /**
+     * 根据读取器当前的记号构造一个值表达式，容器只记录范围，不做解析。空的容器
+     * 直接构造出来，这样数组可以和立即解析一样忽略它们。
+     */
+    private static Expression buildLazy(JSONReader r, JSONReader.Token token)
+        throws IOException, JSONFormatException
+    {
+        if (token == JSONReader.Token.VALUE) {
+            return r.nativeValue();
+        }
+
+        JSONTokenizer t = r.getTokenizer();
+        long start = t.position() - 1;
+        boolean isObject = token == JSONReader.Token.BEGIN_OBJECT;
+        if (t.peek() == (isObject ? '}' : ']')) {
+            r.nextToken();
+            return isObject ? new JSONExpr() : new ArrayExp();
+        }
+
+        r.skipValue();
+        var lazy = new Lazy(t, start, t.position());
+        if (isObject) {
+            JSONExpr e = new JSONExpr();
+            e._lazy = lazy;
+            return e;
+        } else {
+            ArrayExp e = new ArrayExp();
+            e._lazy = lazy;
+            return e;
+        }
+    }
+
+    /**
+     * 紧凑模式。解析结果保存在 JSONTape 中，名和原生数据只记录它们在字符串中的
+     * 范围，表达式是 JSONTape 上的视图，字符串在被访问时才生成。适合于需要长期
+     * 保存大量解析结果的场合。
+     * @param s 被分析的字符串。
+     * @return 返回 SimpleJSON实例。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     */
+    public static SimpleJSON tapeParser(String s)
+        throws JSONFormatException
+    {
+        return new SimpleJSON(JSONTape.parse(s).root());
+    }
+
+    /**
+     * 在 utf-8 编码的字节上以紧凑模式解析。结果持有缓冲区的引用，缓冲区的内容
+     * 不能再被改变。
+     * @param buf 保存json数据的缓冲区，从当前位置到界限的内容被解析。
+     * @return 返回 SimpleJSON实例。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     * @see #tapeParser(String)
+     */
+    public static SimpleJSON tapeParser(ByteBuffer buf)
+        throws JSONFormatException
+    {
+        return new SimpleJSON(JSONTape.parse(buf).root());
+    }
+
+    /**
+     * 并行解析一个以 ‘[’ 为根的巨大数组。先做一次只匹配括号和引号的快速扫描，
+     * 找出每个元素的范围，然后在 ForkJoinPool 中并行解析这些元素，最后按原来的
+     * 顺序组装成数组表达式。结果与顺序解析相同，空的元素同样被忽略。
+     * @param s 被分析的字符串。
+     * @return 返回根部的数组表达式。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     */
+    public static ArrayExp parallelArrayParser(String s)
+        throws JSONFormatException
+    {
+        try {
+            return parallelArrayParser(new JSONCharTokenizer(s),
+                ForkJoinPool.commonPool());
+        } catch (IOException e) {
+            throw new JSONFormatException(e.getMessage());
+        }
+    }
+
+    /**
+     * 在 utf-8 编码的字节上并行解析一个以 ‘[’ 为根的巨大数组。
+     * @param buf 保存json数据的缓冲区，从当前位置到界限的内容被解析。
+     * @return 返回根部的数组表达式。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     * @see #parallelArrayParser(String)
+     */
+    public static ArrayExp parallelArrayParser(ByteBuffer buf)
+        throws JSONFormatException
+    {
+        try {
+            return parallelArrayParser(new JSONByteTokenizer(buf),
+                ForkJoinPool.commonPool());
+        } catch (IOException e) {
+            throw new JSONFormatException(e.getMessage());
+        }
+    }
+
+    /**
+     * 把一个 utf-8 编码的文件整个映射到内存中，并行解析其中以 ‘[’ 为根的巨大数组。
+     * 文件不能超过 2GB。
+     * @param path 文件的路径。
+     * @return 返回根部的数组表达式。
+     * @throws IOException 读取文件时发生的错误。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     * @see #parallelArrayParser(String)
+     */
+    public static ArrayExp parallelArrayParser(Path path)
+        throws IOException, JSONFormatException
+    {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(
+                    "The file is too large to be mapped: " + path);
+            var buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return parallelArrayParser(new JSONByteTokenizer(buf),
+                ForkJoinPool.commonPool());
+        }
+    }
+
+    /**
+     * 在指定的 ForkJoinPool 中并行解析一个以 ‘[’ 为根的巨大数组。词法分析器必须
+     * 支持 fork，也就是以字符串或者缓冲区为数据来源。
+     * @param tokenizer 词法分析器。
+     * @param pool 解析元素的线程池。
+     * @return 返回根部的数组表达式。
+     * @throws IOException 读取数据时发生的错误。
+     * @throws JSONFormatException 在解析过程中遇到任何错误都会抛出。
+     * @throws IllegalArgumentException 词法分析器不支持 fork。
+     * @see #parallelArrayParser(String)
+     */
+    public static ArrayExp parallelArrayParser(JSONTokenizer tokenizer,
+                                               ForkJoinPool pool)
+        throws IOException, JSONFormatException
+    {
+        if (!tokenizer.canFork())
+            throw new IllegalArgumentException(
+                "The tokenizer can't be forked: "
+                    + tokenizer.getClass().getSimpleName());
+        var parallel = new ParallelArray(tokenizer);
+        parallel.scan();
+        return parallel.build(pool);
+    }
+
+    /**
+     * 并行解析数组的过程。扫描阶段用读取器的 skipValue 跳过每个容器元素，只记录
+     * 它的范围；原生数据在扫描时已经被识别，直接构造出来。解析阶段把元素按字节数
+     * 分成若干段，每一段在自己的 fork 出来的词法分析器上解析。
+     */
+    static final class ParallelArray
+    {
+        /** 一个任务至少要解析的字节数，小于它就不再拆分。 */
+        static final int GRAIN = 1 << 16;
+
+        private final JSONTokenizer _source;
+        private long[] _starts = new long[64];
+        private long[] _ends = new long[64];
+        private Expression[] _members = new Expression[64];
+        private int _count = 0;
+        private final AtomicReference<Exception> _error
+            = new AtomicReference<>();
+
+        ParallelArray(JSONTokenizer source)
+        {
+            _source = source;
+        }
+
+        void scan() throws IOException, JSONFormatException
+        {
+            var r = new JSONReader(_source);
+            if (r.nextToken() != JSONReader.Token.BEGIN_ARRAY)
+                throw new JSONFormatException(
+                    "JSONValue mast start '['");
+
+            JSONReader.Token token;
+            while ((token = r.nextToken()) != JSONReader.Token.END_ARRAY) {
+                if (_count == _starts.length) {
+                    int len = _count * 2;
+                    _starts = Arrays.copyOf(_starts, len);
+                    _ends = Arrays.copyOf(_ends, len);
+                    _members = Arrays.copyOf(_members, len);
+                }
+                if (token == JSONReader.Token.VALUE) {
+                    _members[_count] = r.nativeValue();
+                    _starts[_count] = _source.valueStart();
+                } else {
+                    _starts[_count] = _source.position() - 1;
+                    r.skipValue();
+                }
+                _ends[_count] = _source.position();
+                _count++;
+            }
+            r.nextToken();
+        }
+
+        ArrayExp build(ForkJoinPool pool)
+            throws IOException, JSONFormatException
+        {
+            if (_count > 0) pool.invoke(new Task(0, _count));
+
+            Exception error = _error.get();
+            if (error instanceof JSONFormatException)
+                throw (JSONFormatException) error;
+            if (error instanceof RuntimeException)
+                throw (RuntimeException) error;
+            if (error != null) throw (IOException) error;
+
+            var members = new ArrayList<Expression>(_count);
+            for (int i = 0; i < _count; i++) {
+                if (!_members[i].isEmpty()) members.add(_members[i]);
+            }
+            members.trimToSize();
+            return new ArrayExp(members);
+        }
+
+        private void parse(int i)
+        {
+            try {
+                var r = new JSONReader(_source.fork(_starts[i], _ends[i]));
+                _members[i] = SimpleJSON.build(r, r.nextToken());
+            } catch (IOException | JSONFormatException | RuntimeException e) {
+                _error.compareAndSet(null, e);
+            }
+        }
+
+        private final class Task extends RecursiveAction
+        {
+            private static final long serialVersionUID = 1L;
+
+            private final int _lo;
+            private final int _hi;
+
+            Task(int lo, int hi)
+            {
+                _lo = lo;
+                _hi = hi;
+            }
+
+            @Override
+            protected void compute()
+            {
+                if (_hi - _lo > 1 && _ends[_hi - 1] - _starts[_lo] > GRAIN) {
+                    int mid = (_lo + _hi) >>> 1;
+                    invokeAll(new Task(_lo, mid), new Task(mid, _hi));
+                    return;
+                }
+                for (int i = _lo; i < _hi && _error.get() == null; i++) {
+                    if (_members[i] == null) parse(i);
+                }
+            }
+        }
+    }
+
     /**
      * 通过该函数，可以获得最根部的那个JSONExp表达式。通过这个表达式可以遍历
      * 每个key 以及对应的表达式。完成对json树的遍历。
@@ -484,4 +1168,14 @@ public class SimpleJSON
         _jsonExpression = jsonExpression;
     }
 
+    /**
+     * 用一个已经构造好的json表达式构造SimpleJSON实例。
+     * @param jsonExpression 根部的json表达式。
+     * @return 返回 SimpleJSON实例。
+     */
+    static SimpleJSON of(JSONExpr jsonExpression)
+    {
+        return new SimpleJSON(jsonExpression);
+    }
+
 }
@@ -1,5 +1,6 @@
 package name.sayid.sql;
 
+import java.io.IOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
@@ -62,13 +63,35 @@ public class SimpleJSONMaker
     {
         if (m.isEmpty()) return null;
 
-        StringBuilder sb = m.entrySet().stream().collect(StringBuilder::new
-            , (x, y) -> x.append(",\"").append(y.getKey()).
-                append("\":").append(y.getValue())
-            , (x1, x2) -> x1.append(x2));
+        var b = new JSONBuilder().beginObject();
+        for (Map.Entry<String, String> e : m.entrySet())
+            b.key(e.getKey()).value(valueOf(e.getValue()));
+        return b.endObject().buildJSON();
+    }
 
-        sb.append('}').setCharAt(0,'{');
-        return SimpleJSON.parser(sb.toString());
+    /**
+     * A raw value is a native value, unless it is a json or an array
+     * expression, which is parsed.
+     */
+    private static SimpleJSON.Expression valueOf(String raw)
+        throws SimpleJSON.JSONFormatException
+    {
+        String s = raw == null ? "null" : raw.strip();
+        if (s.isEmpty() || (s.charAt(0) != '{' && s.charAt(0) != '[')) {
+            var e = new SimpleJSON.NativeExp();
+            e.setContent(s);
+            return e;
+        }
+        try {
+            var r = new JSONReader(s);
+            SimpleJSON.Expression e = SimpleJSON.build(r, r.nextToken());
+            if (r.nextToken() != JSONReader.Token.END_DOCUMENT)
+                throw new SimpleJSON.JSONFormatException(
+                    "There are more characters after the value: " + s);
+            return e;
+        } catch (IOException e) {
+            throw new SimpleJSON.JSONFormatException(e.getMessage());
+        }
     }
 
     /**
@@ -83,15 +106,10 @@ public class SimpleJSONMaker
     makeFromKeyExpr(Map<String, SimpleJSON.Expression> members)
             throws SimpleJSON.JSONFormatException
     {
-
-        StringBuilder sb = members.entrySet().stream()
-                .collect( StringBuilder::new
-                        , (b, x)->b.append(String.format("\"%s\":%s,"
-                                , x.getKey(), x.getValue()))
-                        , (l, r)->l.append(r));
-
-        sb.deleteCharAt(sb.length() - 1).insert(0,"{").append("}");
-        return SimpleJSON.parser(sb.toString());
+        var b = new JSONBuilder().beginObject();
+        for (Map.Entry<String, SimpleJSON.Expression> e : members.entrySet())
+            b.key(e.getKey()).value(e.getValue());
+        return b.endObject().buildJSON();
     }
 
     /**
@@ -136,8 +154,8 @@ public class SimpleJSONMaker
     public static SimpleJSON.Expression makeExpFromList(List<String> lines)
         throws SimpleJSON.JSONFormatException
     {
-        var sb = new StringBuilder("{\"value\":[")
-            .append(String.join(",", lines)).append("]}");
-        return SimpleJSON.parser(sb.toString()).getJSON().valueOfKey("value");
+        var b = new JSONBuilder().beginArray();
+        for (String line : lines) b.value(valueOf(line));
+        return b.endArray().build();
     }
 }
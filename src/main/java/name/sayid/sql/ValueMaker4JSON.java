@@ -3,11 +3,11 @@ package name.sayid.sql;
 import name.sayid.common.StringsHelper;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import static java.util.logging.Level.*;
 
@@ -18,6 +18,8 @@ import static java.util.logging.Level.*;
 public class ValueMaker4JSON<T> implements ValueMaker<T>{
     private final static Logger L
             = Logger.getLogger(ValueMaker4JSON.class.getName());
+    private static volatile int _parallelThreshold = Integer.getInteger(
+            "name.sayid.sql.ValueMaker4JSON.parallelThreshold", 8192);
     private final Class<T> _clazz;
     private SimpleJSON _json;
 
@@ -72,22 +74,29 @@ public class ValueMaker4JSON<T> implements ValueMaker<T>{
     makeValue(Class<T> clazz, SimpleJSON.JSONExpr expr)
             throws  ValueIllegal {
         try {
-            T o = clazz.getConstructor().newInstance();
-            for (Field field: o.getClass().getDeclaredFields()) {
-                RespAnnotation annotation
-                    = field.getAnnotation(RespAnnotation.class);
-                String s = annotation.respField();
-                if (s.isEmpty()) continue;
-
-                boolean accessable = field.canAccess(o);
-                field.setAccessible(true);
-                if (!annotation.isList()) {
+            var plan = BindingPlan.of(clazz);
+            @SuppressWarnings("unchecked")
+            T o = (T) plan.newInstance();
+            for (BindingPlan.Member m : plan.respMembers) {
+                String s = m.respField;
+                if (!m.isList) {
                     var v_k = expr.valueOfKey(s);
                     if (v_k == null || v_k.isEmpty()) {
                         L.log(WARNING, "There isn't the common key: " + s);
                         continue;
                     }
-                    field.set(o, removeQuoteMark(v_k.toString()));
+                    if (m.isNested) {
+                        if (!(v_k instanceof SimpleJSON.JSONExpr))
+                            throw new ValueIllegal("It should be a json " +
+                                "object: " + s);
+                        m.set(o, makeValue(m.field.getType(),
+                            (SimpleJSON.JSONExpr) v_k));
+                    } else if (v_k instanceof SimpleJSON.NativeExp
+                        && BindingPlan.isTyped((SimpleJSON.NativeExp) v_k)) {
+                        m.setValue(o, (SimpleJSON.NativeExp) v_k);
+                    } else {
+                        m.setText(o, textOf(v_k), isNull(v_k));
+                    }
                 } else {
                     var v_k = expr.valueOfKey(s);
                     if (v_k == null || v_k.isEmpty()) {
@@ -96,21 +105,11 @@ public class ValueMaker4JSON<T> implements ValueMaker<T>{
                     }
                     List<SimpleJSON.JSONExpr> jsons = listFromExpression(v_k);
                     if (jsons.isEmpty()) {
-                        field.set(o, List.of());
+                        m.set(o, List.of());
                     } else {
-                        Class c = annotation.itemClass();
-                        var listVal = jsons.stream().map(x->{
-                            try {
-                                return makeValue(c, x);
-                            } catch (ValueIllegal ex) {
-                                L.log(WARNING, ex.getMessage());
-                                return null;
-                            }
-                        }).filter(x->x!=null).collect(Collectors.toList());
-                        field.set(o, listVal);
+                        m.set(o, makeList(m.itemClass, jsons, s));
                     }
                 }
-                field.setAccessible(accessable);
             }
             return o;
         } catch (Exception e) {
@@ -118,13 +117,126 @@ public class ValueMaker4JSON<T> implements ValueMaker<T>{
         }
     }
 
+    /**
+     * Give the size of lists, from which the members are made in parallel.
+     * It is 8192 by default, or the system property
+     * name.sayid.sql.ValueMaker4JSON.parallelThreshold.
+     * @param threshold The size, Integer.MAX_VALUE means never.
+     */
+    public static void setParallelThreshold(int threshold) {
+        if (threshold <= 0)
+            throw new IllegalArgumentException(
+                "The threshold must be positive: " + threshold);
+        _parallelThreshold = threshold;
+    }
+
+    /**
+     * Return the size of lists, from which the members are made in parallel.
+     * @return The threshold.
+     */
+    public static int getParallelThreshold() {
+        return _parallelThreshold;
+    }
+
+    /**
+     * Make the members of a list in the order of the json array. A list
+     * not less than the threshold is made in parallel by the common
+     * fork-join pool. The members can't be made are dropped, and they are
+     * reported by one warning.
+     */
+    private static List<Object>
+    makeList(Class<?> c, List<SimpleJSON.JSONExpr> jsons, String key) {
+        int size = jsons.size();
+        var members = new Object[size];
+        var errors = new ValueIllegal[size];
+        if (size < _parallelThreshold) {
+            new ListTask(c, jsons, members, errors, 0, size).compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(
+                new ListTask(c, jsons, members, errors, 0, size));
+        }
+
+        var list = new ArrayList<Object>(size);
+        int failed = 0;
+        ValueIllegal first = null;
+        for (int i = 0; i < size; i++) {
+            if (errors[i] != null) {
+                if (failed++ == 0) first = errors[i];
+            } else {
+                list.add(members[i]);
+            }
+        }
+        if (failed > 0) {
+            L.log(WARNING, failed + " of " + size + " members of the list "
+                + key + " can't be made, the first error: " + first.getMessage());
+        }
+        return list;
+    }
+
+    /**
+     * It makes the members in a range of a list, and splits the range when
+     * it is too long.
+     */
+    private static final class ListTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int GRAIN = 1024;
+        private final Class<?> _class;
+        private final List<SimpleJSON.JSONExpr> _jsons;
+        private final Object[] _members;
+        private final ValueIllegal[] _errors;
+        private final int _lo;
+        private final int _hi;
+
+        ListTask(Class<?> c, List<SimpleJSON.JSONExpr> jsons, Object[] members,
+                 ValueIllegal[] errors, int lo, int hi) {
+            _class = c;
+            _jsons = jsons;
+            _members = members;
+            _errors = errors;
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo > GRAIN) {
+                int mid = (_lo + _hi) >>> 1;
+                invokeAll(
+                    new ListTask(_class, _jsons, _members, _errors, _lo, mid),
+                    new ListTask(_class, _jsons, _members, _errors, mid, _hi));
+                return;
+            }
+            for (int i = _lo; i < _hi; i++) {
+                try {
+                    _members[i] = makeValue(_class, _jsons.get(i));
+                } catch (ValueIllegal ex) {
+                    _errors[i] = ex;
+                }
+            }
+        }
+    }
+
     private static String addQuoteMark(String s) {
         s.replace("\"", "\\\"");
         return (new StringBuilder(s)).insert(0, "\"")
                 .append("\"").toString();
     }
 
-    private static String removeQuoteMark(String s) throws IOException {
+    private static String textOf(SimpleJSON.Expression e) throws IOException {
+        if (e instanceof SimpleJSON.NativeExp) {
+            var n = (SimpleJSON.NativeExp) e;
+            if (n.getType() == SimpleJSON.NativeExp.Type.STRING)
+                return n.asString();
+        }
+        return removeQuoteMark(e.toString());
+    }
+
+    private static boolean isNull(SimpleJSON.Expression e) {
+        return e instanceof SimpleJSON.NativeExp
+            && ((SimpleJSON.NativeExp) e).isNull();
+    }
+
+    static String removeQuoteMark(String s) throws IOException {
         if (s == null) return null;
         if (s.isEmpty()) return s;
         int lsp = s.length() - 1;
@@ -145,7 +257,7 @@ public class ValueMaker4JSON<T> implements ValueMaker<T>{
                     ValueIllegal("It should be a List object," +
                     " but it isn't correct!");
         var arr = (SimpleJSON.ArrayExp) expression;
-        var ret = (new LinkedList<SimpleJSON.JSONExpr>());
+        var ret = new ArrayList<SimpleJSON.JSONExpr>(arr.getMembers().size());
         for (SimpleJSON.Expression member: arr.getMembers()) {
             if(!(member instanceof SimpleJSON.JSONExpr))
                 throw new ValueIllegal("The members should" +
@@ -1,8 +1,5 @@
 package name.sayid.sql;
 
-import java.lang.reflect.Field;
-import java.util.Map;
-
 /**
  * Make value from a recode. The recode describes a item of a JDBC ResultSet
  * object.
@@ -10,8 +7,12 @@ import java.util.Map;
  */
 public class ValueMaker4Record<T> implements ValueMaker<T>{
 
-    private final Class<T> _clazz;
+    private final BindingPlan _plan;
     private Record _record;
+    /** The columns the plan is made for. */
+    private String[] _columnNames;
+    /** The column index of every entity field, -1 when there isn't. */
+    private int[] _columns;
 
     /**
      * Constructor, It ask a class for made result.
@@ -19,7 +20,7 @@ public class ValueMaker4Record<T> implements ValueMaker<T>{
      */
     public ValueMaker4Record(Class<T> clazz)
     {
-        _clazz = clazz;
+        _plan = BindingPlan.of(clazz);
     }
 
     /**
@@ -52,22 +53,19 @@ public class ValueMaker4Record<T> implements ValueMaker<T>{
     @Override public T
     makeValue() throws ValueIllegal
     {
-        Map<String, String> nameValue = _record.getNameValues();
         try {
-            T o = _clazz.getConstructor().newInstance();
-            for (Field field: o.getClass().getDeclaredFields()) {
-                RespAnnotation annotation
-                        = field.getAnnotation(RespAnnotation.class);
-                String s = annotation.entityField();
-                if (s.isEmpty()) continue;
-
-                boolean accessable = field.canAccess(o);
-                try {
-                    field.setAccessible(true);
-                    var value = nameValue.get(s);
-                    field.set(o, value == null? "null" : value);
-                } finally {
-                    field.setAccessible(accessable);
+            int[] columns = columns();
+            @SuppressWarnings("unchecked")
+            T o = (T) _plan.newInstance();
+            var members = _plan.entityMembers;
+            for (int i = 0; i < columns.length; i++) {
+                var m = members.get(i);
+                var value = columns[i] < 0 ? null : _record.getValue(columns[i]);
+                if (m.isNested) {
+                    m.set(o, value == null ? null : ValueMaker4JSON.makeValue(
+                        m.field.getType(), SimpleJSON.parser(value).getJSON()));
+                } else {
+                    m.setText(o, value == null? "null" : value, value == null);
                 }
             }
             return o;
@@ -75,4 +73,22 @@ public class ValueMaker4Record<T> implements ValueMaker<T>{
             throw new ValueIllegal(ex);
         }
     }
+
+    /**
+     * The column index of every entity field. It is made once for the
+     * columns of a result set, the rows of the result set share it.
+     */
+    private int[] columns()
+    {
+        if (_columns == null || _columnNames != _record._names) {
+            var members = _plan.entityMembers;
+            var columns = new int[members.size()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = _record.indexOf(members.get(i).entityField);
+            }
+            _columns = columns;
+            _columnNames = _record._names;
+        }
+        return _columns;
+    }
 }
@@ -0,0 +1,68 @@
+package name.sayid.sql;
+
+/**
+ * Bitwise helpers to scan eight bytes in a long word at a time (SWAR, simd
+ * within a register). A word is read from a little endian view, so the
+ * byte at the lowest address is the lowest byte of the word, and the first
+ * matched byte is found by the trailing zeros of a mask.
+ * <p>
+ *     A mask has the highest bit of every matched byte set. The masks are
+ *     exact: a byte is never reported for a carry or a borrow from its
+ *     neighbours.
+ * </p>
+ */
+final class WordScanner
+{
+    static final long LOWS  = 0x7F7F7F7F7F7F7F7FL;
+    static final long HIGHS = 0x8080808080808080L;
+    static final long ONES  = 0x0101010101010101L;
+
+    static final long SPACES     = broadcast(' ');
+    static final long TABS       = broadcast('\t');
+    static final long LFS        = broadcast('\n');
+    static final long CRS        = broadcast('\r');
+    static final long BACKSLASHES = broadcast('\\');
+
+    private WordScanner() {}
+
+    /**
+     * A word has a byte in all positions.
+     */
+    static long broadcast(int b)
+    {
+        return (b & 0xFFL) * ONES;
+    }
+
+    /**
+     * The mask of the zero bytes of a word.
+     */
+    static long zeros(long x)
+    {
+        return ~(((x & LOWS) + LOWS) | x | LOWS);
+    }
+
+    /**
+     * The mask of the bytes of a word equal to a broadcast byte.
+     */
+    static long matches(long w, long pattern)
+    {
+        return zeros(w ^ pattern);
+    }
+
+    /**
+     * The mask of the bytes aren't blank characters of json.
+     */
+    static long nonBlanks(long w)
+    {
+        return ~(matches(w, SPACES) | matches(w, LFS)
+            | matches(w, CRS) | matches(w, TABS)) & HIGHS;
+    }
+
+    /**
+     * The index of the first matched byte in a word, the mask isn't zero.
+     */
+    static int first(long mask)
+    {
+        return Long.numberOfTrailingZeros(mask) >>> 3;
+    }
+}
@@ -0,0 +1,96 @@
+package name.sayid.sql;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BindingPlanTest {
+    @Test
+    public void privateFieldTest() throws Exception
+    {
+        var plan = BindingPlan.of(Hidden.class);
+        assertEquals(3, plan.members.size());
+        var o = (Hidden) plan.newInstance();
+        var name = plan.byRespField("name");
+        name.set(o, "x");
+        assertEquals("x", name.get(o));
+        name.setText(o, "y", false);
+        assertEquals("y", o.name());
+
+        // The fields are closed again after the handles are made.
+        assertFalse(name.field.canAccess(o));
+        assertFalse(plan.byRespField("count").field.canAccess(null));
+    }
+
+    @Test
+    public void staticFieldTest() throws Exception
+    {
+        var count = BindingPlan.of(Hidden.class).byRespField("count");
+        count.setText(null, "3", false);
+        assertEquals(3, count.get(new Hidden()));
+        assertEquals(3, Hidden.count());
+    }
+
+    @Test
+    public void finalFieldTest() throws Exception
+    {
+        var plan = BindingPlan.of(Hidden.class);
+        var id = plan.byRespField("id");
+        var o = (Hidden) plan.newInstance();
+        assertEquals("i", id.get(o));
+        try {
+            id.set(o, "j");
+            fail();
+        } catch (IllegalAccessException e) {
+            assertEquals("i", id.get(o));
+        }
+        assertFalse(id.field.canAccess(o));
+    }
+
+    @Test(expected = ReflectiveOperationException.class)
+    public void noConstructorTest() throws Exception
+    {
+        var plan = BindingPlan.of(Unmade.class);
+        assertEquals(1, plan.members.size());
+        plan.newInstance();
+    }
+}
+
+/**
+ * The fields aren't accessible to the binding plan.
+ */
+class Hidden
+{
+    @RespAnnotation(respField = "name")
+    private String name;
+    @RespAnnotation(respField = "count")
+    private static int count;
+    @RespAnnotation(respField = "id")
+    private final String id = "i";
+
+    public Hidden() {}
+
+    String name()
+    {
+        return name;
+    }
+
+    static int count()
+    {
+        return count;
+    }
+}
+
+/**
+ * The class hasn't a public constructor without parameters.
+ */
+class Unmade
+{
+    @RespAnnotation(respField = "v")
+    public int v;
+
+    public Unmade(int v)
+    {
+        this.v = v;
+    }
+}
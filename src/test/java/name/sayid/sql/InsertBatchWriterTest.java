@@ -0,0 +1,56 @@
+package name.sayid.sql;
+
+import name.sayid.sql.JdbcFixtures.Row;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static name.sayid.sql.JdbcFixtures.recorder;
+import static org.junit.Assert.*;
+
+public class InsertBatchWriterTest {
+    @Test
+    public void insertBatchWriterTest() throws Exception
+    {
+        var calls = new ArrayList<String>();
+        try (var writer = new InsertBatchWriter(recorder(calls), "t", 2, 4)) {
+            for (int i = 0; i < 5; i++) writer.write(new Row(i, i == 1 ? null : "n'" + i));
+            assertEquals(4, writer.getWrittenCount());
+        }
+        assertEquals(List.of(
+            "getAutoCommit", "setAutoCommit[false]",
+            "prepareStatement[INSERT INTO t(id,name,note) VALUES (?,?,?)]",
+            "setInt[1, 0]", "setString[2, n'0]", "setNull[3, 12]", "addBatch",
+            "setInt[1, 1]", "setNull[2, 12]", "setNull[3, 12]", "addBatch",
+            "executeBatch",
+            "setInt[1, 2]", "setString[2, n'2]", "setNull[3, 12]", "addBatch",
+            "setInt[1, 3]", "setString[2, n'3]", "setNull[3, 12]", "addBatch",
+            "executeBatch", "commit",
+            "setInt[1, 4]", "setString[2, n'4]", "setNull[3, 12]", "addBatch",
+            "executeBatch", "commit", "close", "setAutoCommit[true]"), calls);
+    }
+
+    @Test
+    public void commitIntervalTest() throws Exception
+    {
+        // The rows are committed every interval, before a batch is full.
+        var calls = new ArrayList<String>();
+        try (var writer = new InsertBatchWriter(recorder(calls), "t", 3, 2)) {
+            for (int i = 0; i < 5; i++) writer.write(new Row(i, "n" + i));
+        }
+        int executes = 0, commits = 0;
+        for (String call : calls) {
+            if (call.equals("commit")) {
+                commits++;
+                assertEquals(commits, executes);
+            } else if (call.equals("executeBatch")) {
+                executes++;
+            }
+        }
+        assertEquals(3, executes);
+        assertEquals(3, commits);
+        assertEquals(2, calls.subList(0, calls.indexOf("executeBatch")).stream()
+            .filter(c -> c.equals("addBatch")).count());
+    }
+}
@@ -0,0 +1,54 @@
+package name.sayid.sql;
+
+import name.sayid.sql.JdbcFixtures.Row;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InsertSqlMakerTest {
+    @Test
+    public void insertBatchTest() throws Exception
+    {
+        var rows = new ArrayList<Row>();
+        for (int i = 0; i < 5; i++) rows.add(new Row(i, "n'" + i));
+        var maker = new InsertSqlMaker("t", 2, 1 << 20);
+        var sql = maker.makeBatchSql(rows);
+        assertEquals(3, sql.size());
+        assertEquals("INSERT INTO t(id,name,note) VALUES (0,'n\\'0',null),(1,'n\\'1',null);",
+            sql.get(0));
+        assertEquals("INSERT INTO t(id,name,note) VALUES (4,'n\\'4',null);", sql.get(2));
+        assertEquals(sql, maker.makeBatchSql(rows.stream()));
+        assertEquals("INSERT INTO t(id,name,note) VALUES (0,'n\\'0',null);",
+            maker.makeSql(rows.get(0)));
+
+        int bytes = "INSERT INTO t(id,name,note) VALUES ;".length()
+            + 2 * "(0,'n\\'0',null)".length() + 1;
+        sql = new InsertSqlMaker("t", 100, bytes).makeBatchSql(rows);
+        assertEquals(3, sql.size());
+        assertEquals(bytes, sql.get(0).length());
+    }
+
+    public static class Renamed
+    {
+        @RespAnnotation(entityField = "name", shouldAddQuoteMark = true)
+        public String old = "a";
+        @RespAnnotation(entityField = "id")
+        public int id = 1;
+        @RespAnnotation(entityField = "name", shouldAddQuoteMark = true)
+        public String name = "b";
+    }
+
+    @Test
+    public void repeatedColumnTest() throws Exception
+    {
+        // A column annotated twice is at its first field, with the last value.
+        var maker = new InsertSqlMaker("t");
+        var o = new Renamed();
+        assertEquals("INSERT INTO t(name,id) VALUES ('b',1);", maker.makeSql(o));
+        assertEquals(List.of(maker.makeSql(o).replace(";", "") + ",('b',1);"),
+            maker.makeBatchSql(List.of(o, o)));
+    }
+}
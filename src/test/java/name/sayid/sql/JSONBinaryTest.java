@@ -0,0 +1,70 @@
+package name.sayid.sql;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class JSONBinaryTest {
+    private static final String DOC = " { 'a' : \"x\\\"y\" , \"b\": [1, 2 ,{\"c\":null}],"
+            + " \"d\":{\"e\":[[],[1,],\"中文\"]}} ";
+
+    @Test
+    public void binaryTest() throws Exception
+    {
+        var json = SimpleJSON.parser(DOC);
+        var doc = JSONBinary.wrap(JSONBinary.encode(json));
+        assertEquals(json.toString(), doc.root().toString());
+        var b = (SimpleJSON.ArrayExp) doc.root().valueOfKey("b");
+        assertEquals(2L, ((SimpleJSON.NativeExp) b.getMembers().get(1)).asLong());
+        assertNull(doc.root().valueOfKey("x"));
+
+        // The numbers and the strings keep their texts.
+        String edges = "{\"z\":1.0,\"y\":1e5,\"x\":-0,\"w\":12345678901234567890,"
+            + "\"v\":-9223372036854775808,\"u\":0.1,\"t\":\"a\\\"b\\u00e9\\n\","
+            + "\"s\":\"\\/\",\"r\":\"\u00e9\"}";
+        var source = SimpleJSON.parser(edges).getJSON();
+        var root = JSONBinary.wrap(JSONBinary.encode(source)).root();
+        assertEquals(source.toString(), root.toString());
+        for (String key : source.keys()) {
+            var a = (SimpleJSON.NativeExp) source.valueOfKey(key);
+            var v = (SimpleJSON.NativeExp) root.valueOfKey(key);
+            assertEquals(a.toString(), v.toString());
+            assertSame(a.getType(), v.getType());
+            assertEquals(a.asString(), v.asString());
+            if (a.getType() == SimpleJSON.NativeExp.Type.NUMBER)
+                assertEquals(a.asDouble(), v.asDouble(), 0);
+        }
+        assertEquals(Long.MIN_VALUE, ((SimpleJSON.NativeExp) root.valueOfKey("v")).asLong());
+        assertEquals("a\"b\u00e9\n", ((SimpleJSON.NativeExp) root.valueOfKey("t")).asString());
+
+        var path = Files.createTempFile("simple-json", ".sjb");
+        try {
+            JSONBinary.write(json, path);
+            assertEquals(json.toString(), JSONBinary.open(path).json().toString());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void illegalBinaryTest() throws Exception
+    {
+        try {
+            JSONBinary.wrap(ByteBuffer.wrap("{\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+            fail();
+        } catch (SimpleJSON.JSONFormatException e) {
+            // It isn't a binary document.
+        }
+        var buf = JSONBinary.encode(SimpleJSON.parser("{\"a\":[1,2]}"));
+        try {
+            JSONBinary.wrap(buf.duplicate().limit(buf.limit() - 4));
+            fail();
+        } catch (SimpleJSON.JSONFormatException e) {
+            // The document is truncated.
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package name.sayid.sql;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JSONBinderTest {
+    public static class Item
+    {
+        @RespAnnotation(respField = "id")
+        public String id;
+    }
+
+    public static class Resp
+    {
+        @RespAnnotation(respField = "name")
+        public String name;
+        @RespAnnotation(respField = "count")
+        public String count;
+        @RespAnnotation(respField = "items", isList = true, itemClass = Item.class)
+        public List<Item> items;
+    }
+
+    @Test
+    public void binderTest() throws Exception
+    {
+        String text = "{\"skip\":{\"a\":[1,{\"b\":\"]\"}]},\"name\":\"a\\tb\","
+            + "\"count\":12,\"items\":[{\"id\":\"x\",\"more\":[]},,{\"id\":'y'}]}";
+        Resp bound = new JSONBinder<>(Resp.class).bind(text);
+        Resp made = ValueMaker4JSON.makeValue(Resp.class,
+            SimpleJSON.parser(text).getJSON());
+        assertEquals("a\tb", bound.name);
+        assertEquals(made.name, bound.name);
+        assertEquals(made.count, bound.count);
+        assertEquals(2, bound.items.size());
+        assertEquals(made.items.get(0).id, bound.items.get(0).id);
+        assertEquals(made.items.get(1).id, bound.items.get(1).id);
+    }
+
+    public enum Color { RED, GREEN }
+
+    public static class Typed
+    {
+        @RespAnnotation(respField = "i")
+        public int i;
+        @RespAnnotation(respField = "l")
+        public Long l;
+        @RespAnnotation(respField = "d")
+        public double d;
+        @RespAnnotation(respField = "b")
+        public boolean b;
+        @RespAnnotation(respField = "m")
+        public BigDecimal m;
+        @RespAnnotation(respField = "c")
+        public Color c;
+        @RespAnnotation(respField = "t")
+        public LocalDate t;
+        @RespAnnotation(respField = "n")
+        public Integer n = 5;
+        @RespAnnotation(respField = "item")
+        public Item item;
+    }
+
+    @Test
+    public void typedBindTest() throws Exception
+    {
+        String text = "{\"i\":-12,\"l\":\"9007199254740993\",\"d\":1.5e3,"
+            + "\"b\":true,\"m\":0.10,\"c\":\"GREEN\",\"t\":\"2024-02-29\","
+            + "\"n\":null,\"item\":{\"id\":\"x\"}}";
+        Typed made = ValueMaker4JSON.makeValue(Typed.class,
+            SimpleJSON.parser(text).getJSON());
+        Typed bound = new JSONBinder<>(Typed.class).bind(text);
+        for (Typed o : new Typed[] {made, bound}) {
+            assertEquals(-12, o.i);
+            assertEquals(Long.valueOf(9007199254740993L), o.l);
+            assertEquals(1500.0, o.d, 0.0);
+            assertTrue(o.b);
+            assertEquals(new BigDecimal("0.10"), o.m);
+            assertSame(Color.GREEN, o.c);
+            assertEquals(LocalDate.of(2024, 2, 29), o.t);
+            assertNull(o.n);
+            assertEquals("x", o.item.id);
+        }
+
+        // Numbers are read by the accessors of NativeExp.
+        text = "{\"l\":9007199254740993,\"d\":-2,\"b\":false}";
+        made = ValueMaker4JSON.makeValue(Typed.class, SimpleJSON.parser(text).getJSON());
+        bound = new JSONBinder<>(Typed.class).bind(text);
+        for (Typed o : new Typed[] {made, bound}) {
+            assertEquals(Long.valueOf(9007199254740993L), o.l);
+            assertEquals(-2.0, o.d, 0.0);
+            assertFalse(o.b);
+        }
+        text = "{\"i\":7 ,\"d\":12345678901234567890,\"b\":1}";
+        made = ValueMaker4JSON.makeValue(Typed.class, SimpleJSON.parser(text).getJSON());
+        bound = new JSONBinder<>(Typed.class).bind(text);
+        Typed bytes = new JSONBinder<>(Typed.class)
+            .bind(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        for (Typed o : new Typed[] {made, bound, bytes}) {
+            assertEquals(7, o.i);
+            assertEquals(1.2345678901234567e19, o.d, 0.0);
+            assertTrue(o.b);
+        }
+        try {
+            new JSONBinder<>(Typed.class).bind("{\"i\":4294967296}");
+            fail();
+        } catch (ValueIllegal e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void illegalBindTest() throws Exception
+    {
+        try {
+            new JSONBinder<>(Typed.class).bind("{\"i\":1");
+            fail();
+        } catch (SimpleJSON.JSONFormatException e) {
+            // The text is unterminated.
+        }
+        try {
+            new JSONBinder<>(Typed.class).bind("[1]");
+            fail();
+        } catch (SimpleJSON.JSONFormatException e) {
+            // The root must be an object.
+        }
+        try {
+            new JSONBinder<>(Typed.class).bind("{\"item\":1}");
+            fail();
+        } catch (ValueIllegal e) {
+            // A nested field must be an object.
+        }
+    }
+}
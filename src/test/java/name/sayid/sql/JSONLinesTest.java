@@ -0,0 +1,72 @@
+package name.sayid.sql;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JSONLinesTest {
+    @Test
+    public void jsonLinesTest() throws Exception
+    {
+        var sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("{\"i\":").append(i).append("}\r\n");
+            if (i % 10 == 0) sb.append("\n{\"bad\":tr{ue}\n");
+        }
+        var buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        var malformed = new ArrayList<JSONLines.Malformed>();
+        var got = new ArrayList<String>();
+        new JSONLines(buf).chunkSize(64).skipMalformed(malformed::add)
+            .forEach(json -> got.add(json.getJSON().valueOfKey("i").toString()));
+        assertEquals(100, got.size());
+        assertEquals("37", got.get(37));
+        assertEquals(10, malformed.size());
+        assertEquals("{\"bad\":tr{ue}", malformed.get(0).line());
+
+        long sum = new JSONLines(buf).chunkSize(64).ordered(false)
+            .skipMalformed(m -> {}).stream()
+            .mapToLong(json -> Long.parseLong(
+                json.getJSON().valueOfKey("i").toString()))
+            .sum();
+        assertEquals(4950L, sum);
+    }
+
+    @Test
+    public void malformedTest() throws Exception
+    {
+        var buf = ByteBuffer.wrap("{\"i\":1}\n{bad\n{\"i\":2}\n"
+            .getBytes(StandardCharsets.UTF_8));
+        try {
+            new JSONLines(buf).forEach(json -> {});
+            fail();
+        } catch (SimpleJSON.JSONFormatException e) {
+            // The lines abort at a malformed line by default.
+        }
+        try {
+            new JSONLines(buf).stream().count();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof SimpleJSON.JSONFormatException);
+        }
+
+        var malformed = new ArrayList<JSONLines.Malformed>();
+        var got = new ArrayList<String>();
+        new JSONLines(buf).skipMalformed(malformed::add).forEach(json -> got.add(json.toString()));
+        assertEquals(List.of("{\"i\":1}", "{\"i\":2}"), got);
+        assertEquals(1, malformed.size());
+        assertEquals(8, malformed.get(0).offset());
+        assertEquals("{bad", malformed.get(0).line());
+        assertNotNull(malformed.get(0).error());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkSizeTest() throws Exception
+    {
+        new JSONLines(ByteBuffer.allocate(0)).chunkSize(0);
+    }
+}
@@ -0,0 +1,49 @@
+package name.sayid.sql;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class JSONParseCacheTest {
+    private static final String DOC = " { 'a' : \"x\\\"y\" , \"b\": [1, 2 ,{\"c\":null}],"
+            + " \"d\":{\"e\":[[],[1,],\"中文\"]}} ";
+
+    @Test
+    public void parseCacheTest() throws Exception
+    {
+        var cache = new JSONParseCache(2, 1 << 20);
+        var a = cache.parse(DOC);
+        assertSame(a, cache.parse(new String(DOC.toCharArray())));
+        assertEquals(a.toString(),
+            cache.parse(DOC.getBytes(StandardCharsets.UTF_8)).toString());
+        cache.parse("{\"b\":1}");
+        cache.parse("{\"b\":2}");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.hitCount());
+        assertEquals(4, cache.missCount());
+        assertEquals(2, cache.evictionCount());
+        assertNotSame(a, cache.parse(DOC));
+    }
+
+    @Test
+    public void malformedCacheTest() throws Exception
+    {
+        var cache = new JSONParseCache(2, 1 << 20);
+        try {
+            cache.parse("{\"a\":tr{ue}");
+            fail();
+        } catch (SimpleJSON.JSONFormatException e) {
+            // A malformed text isn't cached.
+        }
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundsTest() throws Exception
+    {
+        new JSONParseCache(0, 1 << 20);
+    }
+}
@@ -0,0 +1,47 @@
+package name.sayid.sql;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JSONPathTest {
+    @Test
+    public void jsonPathTest() throws Exception
+    {
+        String doc = "{\"data\":{\"items\":[{\"price\":1},{},{\"price\":2},"
+            + "{\"price\":3,\"tags\":['a','b']}]}}";
+        var json = SimpleJSON.parser(doc);
+
+        var price = JSONPath.compile("$.data.items[*].price");
+        assertSame(price, JSONPath.compile("$.data.items[*].price"));
+        assertEquals("[1, 2, 3]", price.select(json).toString());
+        assertEquals("[1, 2, 3]", price.select(new JSONReader(doc)).toString());
+
+        assertEquals("[1, 3]", JSONPath.compile("$['data'].items[::2].price")
+            .select(new JSONReader(doc)).toString());
+        assertEquals("['b']", JSONPath.compile("$.data.items[-1].tags[1:]")
+            .select(new JSONReader(doc)).toString());
+        assertNull(JSONPath.compile("$.data.items[9]").first(json.getJSON()));
+
+        String dup = "{\"a\":1,\"b\":{\"c\":3},\"a\":2}";
+        var a = JSONPath.compile("$.a");
+        assertEquals("[2]", a.select(SimpleJSON.parser(dup)).toString());
+        assertEquals("[2]", a.select(new JSONReader(dup)).toString());
+        var all = JSONPath.compile("$.*");
+        assertEquals(all.select(SimpleJSON.parser(dup)).toString(),
+            all.select(new JSONReader(dup)).toString());
+    }
+
+    @Test
+    public void illegalPathTest() throws Exception
+    {
+        for (String path : new String[] {"a.b", "$.", "$..a", "$[", "$['a", "$.a[x]"}) {
+            try {
+                JSONPath.compile(path);
+                fail(path);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().endsWith(path));
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package name.sayid.sql;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The fixtures of the jdbc tests.
+ */
+final class JdbcFixtures
+{
+    private JdbcFixtures() {}
+
+    public static class Row
+    {
+        @RespAnnotation(entityField = "id")
+        public int id;
+        @RespAnnotation(entityField = "name", shouldAddQuoteMark = true)
+        public String name;
+        @RespAnnotation(entityField = "note")
+        public String note;
+
+        public Row() {}
+
+        Row(int id, String name)
+        {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    /**
+     * A connection records the calls of jdbc as texts.
+     */
+    static Connection recorder(List<String> calls)
+    {
+        return recorder(calls, null);
+    }
+
+    /**
+     * A connection records the calls of jdbc as texts, its statements
+     * return a result set by executeQuery.
+     */
+    static Connection recorder(List<String> calls, ResultSet resultSet)
+    {
+        var statement = Proxy.newProxyInstance(
+            JdbcFixtures.class.getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            (proxy, method, args) -> {
+                calls.add(method.getName() + (args == null ? "" : Arrays.toString(args)));
+                switch (method.getName()) {
+                    case "executeBatch": return new int[0];
+                    case "executeQuery": return resultSet;
+                    default: return null;
+                }
+            });
+        boolean[] autoCommit = {true};
+        return (Connection) Proxy.newProxyInstance(
+            JdbcFixtures.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                calls.add(method.getName() + (args == null ? "" : Arrays.toString(args)));
+                switch (method.getName()) {
+                    case "prepareStatement": return statement;
+                    case "getAutoCommit": return autoCommit[0];
+                    case "setAutoCommit": autoCommit[0] = (Boolean) args[0]; return null;
+                    default: return null;
+                }
+            });
+    }
+
+    /**
+     * The metadata of columns, the other properties are 0 or null.
+     */
+    static ResultSetMetaData metadata(String[] names, int[] types)
+    {
+        return (ResultSetMetaData) Proxy.newProxyInstance(
+            JdbcFixtures.class.getClassLoader(),
+            new Class<?>[] {ResultSetMetaData.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getColumnCount": return names.length;
+                    case "getColumnName": return names[(Integer) args[0] - 1];
+                    case "getColumnType": return types[(Integer) args[0] - 1];
+                    case "getColumnTypeName":
+                        return JDBCType.valueOf(types[(Integer) args[0] - 1]).getName();
+                    default: return method.getReturnType() == int.class ? 0 : null;
+                }
+            });
+    }
+
+    /**
+     * A result set of rows (i, "n" + i, ""), the calls of close and
+     * getMetaData are counted by counts[0] and counts[1].
+     */
+    static ResultSet rows(int count, int[] counts)
+    {
+        var metadata = metadata(new String[] {"id", "name", "note"},
+            new int[] {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR});
+        int[] row = {0};
+        return (ResultSet) Proxy.newProxyInstance(
+            JdbcFixtures.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next": return ++row[0] <= count;
+                    case "getMetaData": counts[1]++; return metadata;
+                    case "getType": return ResultSet.TYPE_FORWARD_ONLY;
+                    case "getObject":
+                        int i = (Integer) args[0];
+                        return i == 1 ? (Object) row[0] : i == 2 ? "n" + row[0] : "";
+                    case "close": counts[0]++; return null;
+                    default: return null;
+                }
+            });
+    }
+
+    /**
+     * A result set of the values of rows, all columns are VARCHAR.
+     */
+    static ResultSet table(String[] names, Object[]... values)
+    {
+        var types = new int[names.length];
+        Arrays.fill(types, Types.VARCHAR);
+        var metadata = metadata(names, types);
+        int[] row = {0};
+        return (ResultSet) Proxy.newProxyInstance(
+            JdbcFixtures.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next": return ++row[0] <= values.length;
+                    case "getMetaData": return metadata;
+                    case "getObject": return values[row[0] - 1][(Integer) args[0] - 1];
+                    default: return null;
+                }
+            });
+    }
+}
@@ -0,0 +1,59 @@
+package name.sayid.sql;
+
+import name.sayid.sql.JdbcFixtures.Row;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static name.sayid.sql.JdbcFixtures.recorder;
+import static name.sayid.sql.JdbcFixtures.rows;
+import static org.junit.Assert.*;
+
+public class MakeValues4ResultSetTest {
+    @Test
+    public void resultStreamTest() throws Exception
+    {
+        int[] closed = {0, 0};
+        var maker = new MakeValues4ResultSet<>(Row.class).setFetchSize(100);
+        maker.set(rows(10000, closed));
+        try (var s = maker.stream()) {
+            assertEquals(50005000L, s.mapToLong(r -> r.id).sum());
+        }
+        assertEquals(1, closed[0]);
+
+        maker.set(rows(10000, closed));
+        try (var it = maker.iterator()) {
+            var r = it.next();
+            assertEquals(1, r.id);
+            assertEquals("n1", r.name);
+            assertEquals(2, it.next().id);
+        }
+        assertEquals(2, closed[0]);
+        assertEquals(2, closed[1]);
+    }
+
+    @Test
+    public void queryTest() throws Exception
+    {
+        var calls = new ArrayList<String>();
+        int[] closed = {0, 0};
+        var connection = recorder(calls, rows(3, closed));
+        var maker = new MakeValues4ResultSet<>(Row.class);
+        var values = maker.query(connection, "SELECT * FROM t WHERE id > ?", 0).makeValues();
+        assertEquals(3, values.size());
+        assertEquals("n3", values.get(2).name);
+        assertEquals(1, closed[0]);
+        assertEquals("close", calls.get(calls.size() - 1));
+
+        // The statement of a former query is closed by the next one, and
+        // by set.
+        calls.clear();
+        maker.query(connection, "SELECT 1").query(connection, "SELECT 2");
+        assertEquals(1, Collections.frequency(calls, "close"));
+        maker.set(rows(1, closed));
+        assertEquals(2, Collections.frequency(calls, "close"));
+        maker.set(rows(1, closed));
+        assertEquals(2, Collections.frequency(calls, "close"));
+    }
+}
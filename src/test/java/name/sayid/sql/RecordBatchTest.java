@@ -0,0 +1,118 @@
+package name.sayid.sql;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static name.sayid.sql.JdbcFixtures.metadata;
+import static org.junit.Assert.*;
+
+public class RecordBatchTest {
+    @Test
+    public void recordBatchTest() throws Exception
+    {
+        int[] types = {Types.BIGINT, Types.DOUBLE, Types.VARCHAR};
+        String[] names = {"id", "price", "name"};
+        var metadata = metadata(names, types);
+        // Every third row has null price and name.
+        int[] row = {0};
+        boolean[] wasNull = {false};
+        var rs = (ResultSet) Proxy.newProxyInstance(
+            RecordBatchTest.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+                boolean isNull = row[0] % 3 == 0;
+                switch (method.getName()) {
+                    case "next": return ++row[0] <= 10;
+                    case "getMetaData": return metadata;
+                    case "wasNull": return wasNull[0];
+                    case "getLong": wasNull[0] = false; return (long) row[0];
+                    case "getDouble": wasNull[0] = isNull; return isNull ? 0.0 : row[0] / 2.0;
+                    case "getString": return isNull ? null : "n" + row[0] % 2;
+                    default: return null;
+                }
+            });
+        var batch = new RecordBatch(4);
+        long ids = 0;
+        double prices = 0;
+        int nulls = 0, batches = 0;
+        while (batch.read(rs)) {
+            batches++;
+            var id = (RecordBatch.LongColumn) batch.column("id");
+            var price = (RecordBatch.DoubleColumn) batch.column(1);
+            var name = (RecordBatch.StringColumn) batch.column("name");
+            assertEquals(RecordBatch.Kind.STRING, name.getKind());
+            assertTrue(name.dictionary().size() <= 2);
+            for (int i = 0; i < batch.size(); i++) {
+                ids += id.values()[i];
+                prices += price.values()[i];
+                if (price.isNull(i)) {
+                    nulls++;
+                    assertNull(name.getString(i));
+                } else {
+                    assertEquals("n" + id.getLong(i) % 2, name.getString(i));
+                }
+            }
+        }
+        assertEquals(3, batches);
+        assertEquals(55, ids);
+        assertEquals((55 - 18) / 2.0, prices, 0);
+        assertEquals(3, nulls);
+    }
+
+    @Test
+    public void realTest() throws Exception
+    {
+        // The driver widens the float of a REAL column.
+        var metadata = metadata(new String[] {"rate", "ratio"},
+            new int[] {Types.REAL, Types.DOUBLE});
+        int[] row = {0};
+        var rs = (ResultSet) Proxy.newProxyInstance(
+            RecordBatchTest.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next": return ++row[0] <= 1;
+                    case "getMetaData": return metadata;
+                    case "wasNull": return false;
+                    case "getDouble": return (double) 0.1f;
+                    default: return null;
+                }
+            });
+        var batch = new RecordBatch(2);
+        assertTrue(batch.read(rs));
+        assertEquals("0.1", batch.column("rate").getString(0));
+        assertEquals(Double.toString(0.1f), batch.column("ratio").getString(0));
+        assertEquals(0.1f, ((RecordBatch.DoubleColumn) batch.column(0)).getDouble(0), 0);
+    }
+
+    @Test
+    public void bitTest() throws Exception
+    {
+        // A boolean of PostgreSQL is a BIT column can't be read by getLong.
+        var metadata = metadata(new String[] {"flag"}, new int[] {Types.BIT});
+        int[] row = {0};
+        var rs = (ResultSet) Proxy.newProxyInstance(
+            RecordBatchTest.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "next": return ++row[0] <= 3;
+                    case "getMetaData": return metadata;
+                    case "wasNull": return false;
+                    case "getBoolean": return row[0] % 2 == 1;
+                    case "getLong": throw new SQLException("Bad value for type long : t");
+                    default: return null;
+                }
+            });
+        var batch = new RecordBatch(4);
+        assertTrue(batch.read(rs));
+        var flag = (RecordBatch.LongColumn) batch.column("flag");
+        assertEquals("true", flag.getString(0));
+        assertEquals("false", flag.getString(1));
+        assertEquals(1, flag.getLong(2));
+    }
+}
@@ -0,0 +1,57 @@
+package name.sayid.sql;
+
+import name.sayid.sql.JdbcFixtures.Row;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static name.sayid.sql.JdbcFixtures.rows;
+import static name.sayid.sql.JdbcFixtures.table;
+import static org.junit.Assert.*;
+
+public class RecordTest {
+    @Test
+    public void recordTest() throws Exception
+    {
+        var rs = rows(3, new int[2]);
+        var record = new Record();
+        rs.next();
+        var first = record.setCurrent(rs).getNameValues();
+        rs.next();
+        record.setCurrent(rs);
+        assertEquals("n1", first.get("name"));
+        assertEquals("n2", record.getNameValues().get("name"));
+        assertEquals(3, record.getNameValues().size());
+        assertEquals(1, record.indexOf("name"));
+        assertEquals(-1, record.indexOf("none"));
+        assertEquals("2", record.getValue(0));
+
+        var shared = new Record(true);
+        rs.next();
+        var values = shared.setCurrent(rs).getNameValues();
+        assertEquals("n3", values.get("name"));
+        assertEquals(3, new ValueMaker4Record<>(Row.class).setRecord(shared).makeValue().id);
+    }
+
+    @Test
+    public void columnOrderTest() throws Exception
+    {
+        // A repeated name is given once, by its first column.
+        var rs = table(new String[] {"z", "a", "z", "m", "b"},
+            new Object[] {1, 2, 3, 4, null});
+        rs.next();
+        var values = new Record().setCurrent(rs).getNameValues();
+        var names = new ArrayList<String>();
+        var texts = new ArrayList<String>();
+        for (var e : values.entrySet()) {
+            names.add(e.getKey());
+            texts.add(e.getValue());
+        }
+        assertEquals(List.of("z", "a", "m", "b"), names);
+        assertEquals(Arrays.asList("1", "2", "4", null), texts);
+        assertEquals(4, values.size());
+        assertEquals("1", values.get("z"));
+    }
+}
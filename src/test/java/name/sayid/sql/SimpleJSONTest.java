@@ -0,0 +1,314 @@
+package name.sayid.sql;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class SimpleJSONTest {
+    private static final String DOC = " { 'a' : \"x\\\"y\" , \"b\": [1, 2 ,{\"c\":null}],"
+            + " \"d\":{\"e\":[[],[1,],\"中文\"]}} ";
+
+    @Test
+    public void parserTest() throws Exception
+    {
+        var json = SimpleJSON.parser(DOC).getJSON();
+        assertEquals("\"x\\\"y\"", json.valueOfKey("a").toString());
+        var b = (SimpleJSON.ArrayExp) json.valueOfKey("b");
+        assertEquals(3, b.getMembers().size());
+        assertEquals("1", b.getMembers().get(0).toString());
+        var d = (SimpleJSON.JSONExpr) json.valueOfKey("d");
+        assertEquals("[[1],\"中文\"]", d.valueOfKey("e").toString());
+    }
+
+    @Test
+    public void keyOrderTest() throws Exception
+    {
+        var sb = new StringBuilder("{");
+        for (int i = 20; i > 0; i--) sb.append("\"k").append(i).append("\":").append(i).append(',');
+        sb.append("\"k20\":0}");
+        var json = SimpleJSON.parser(sb.toString()).getJSON();
+        assertEquals("k20", json.keys().iterator().next());
+        assertEquals("0", json.valueOfKey("k20").toString());
+        assertEquals("1", json.valueOfKey("k1").toString());
+        assertTrue(json.toString().startsWith("{\"k20\":0,\"k19\":19,"));
+    }
+
+    @Test
+    public void readerTest() throws Exception
+    {
+        String expected = SimpleJSON.parser(DOC).toString();
+        var tokenizer = new JSONCharTokenizer(new StringReader(DOC), 16);
+        assertEquals(expected, SimpleJSON.parser(tokenizer).toString());
+        var in = new ByteArrayInputStream(DOC.getBytes(StandardCharsets.UTF_8));
+        assertEquals(expected, SimpleJSON.parser(in).toString());
+    }
+
+    @Test
+    public void byteBufferTest() throws Exception
+    {
+        String expected = SimpleJSON.parser(DOC).toString();
+        byte[] bytes = DOC.getBytes(StandardCharsets.UTF_8);
+        var json = SimpleJSON.parser(ByteBuffer.wrap(bytes));
+        assertEquals(expected, json.toString());
+        var a = json.getJSON().valueOfKey("a");
+        assertTrue(a instanceof JSONByteTokenizer.ValueView);
+        assertEquals("x\"y", ((SimpleJSON.NativeExp) a).asString());
+
+        var path = Files.createTempFile("simple-json", ".json");
+        try {
+            Files.write(path, bytes);
+            assertEquals(expected, SimpleJSON.parser(path).toString());
+            try (var tokenizer = JSONByteTokenizer.map(path, 8)) {
+                assertEquals(expected, SimpleJSON.parser(tokenizer).toString());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void lazyParserTest() throws Exception
+    {
+        String doc = "{\"a\":{\"b\":[1,{\"c\":2}],\"x\":{bad}},\"d\":3}";
+        var json = SimpleJSON.lazyParser(doc).getJSON();
+        assertEquals("3", json.valueOfKey("d").toString());
+        var a = (SimpleJSON.JSONExpr) json.valueOfKey("a");
+        var b = (SimpleJSON.ArrayExp) a.valueOfKey("b");
+        assertEquals("{\"c\":2}", b.getMembers().get(1).toString());
+        try {
+            a.valueOfKey("x").isEmpty();
+            fail("The illegal lazy expression should be reported when it is visited.");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof SimpleJSON.JSONFormatException);
+        }
+        assertEquals(SimpleJSON.parser(DOC).toString(), SimpleJSON.lazyParser(DOC).toString());
+    }
+
+    @Test
+    public void tapeParserTest() throws Exception
+    {
+        var tape = JSONTape.parse(DOC);
+        var json = tape.root();
+        assertEquals("\"x\\\"y\"", json.valueOfKey("a").toString());
+        var b = (SimpleJSON.ArrayExp) json.valueOfKey("b");
+        assertEquals(3, b.getMembers().size());
+        assertEquals("{\"c\":null}", b.getMembers().get(2).toString());
+        var d = (SimpleJSON.JSONExpr) json.valueOfKey("d");
+        assertEquals("[[1],\"中文\"]", d.valueOfKey("e").toString());
+        assertNull(json.valueOfKey("none"));
+
+        var bytes = ByteBuffer.wrap(DOC.getBytes(StandardCharsets.UTF_8));
+        var e = ((SimpleJSON.JSONExpr) SimpleJSON.tapeParser(bytes).getJSON()
+                .valueOfKey("d")).valueOfKey("e");
+        assertEquals("[[1],\"中文\"]", e.toString());
+
+        String dup = "{\"a\":1,\"b\":2,\"a\":3}";
+        var view = JSONTape.parse(dup).root();
+        assertEquals(java.util.List.of("a", "b"), new java.util.ArrayList<>(view.keys()));
+        assertEquals("3", view.getMembers().get("a").toString());
+        assertEquals(2, view.getMembers().size());
+        assertEquals(SimpleJSON.parser(dup).toString(), view.toString());
+
+        view = JSONTape.parse("{\"a\":1,\"a\":2}").root();
+        assertEquals(java.util.Set.of("a"), view.keys());
+        assertEquals(1, view.getMembers().size());
+        assertEquals("2", view.valueOfKey("a").toString());
+        assertEquals("{\"a\":2}", view.toString());
+    }
+
+    @Test
+    public void pullReaderTest() throws Exception
+    {
+        var reader = new JSONReader(
+                "[{\"id\":1,\"skip\":{\"x\":[1,\"]\"]},\"name\":'a\\'b'},, {\"id\":-2}]");
+        assertEquals(JSONReader.Token.BEGIN_ARRAY, reader.nextToken());
+        long sum = 0;
+        String name = null;
+        while (reader.nextToken() == JSONReader.Token.BEGIN_OBJECT) {
+            while (reader.nextToken() != JSONReader.Token.END_OBJECT) {
+                if ("id".equals(reader.currentKey())) sum += reader.readLong();
+                else if ("name".equals(reader.currentKey())) name = reader.readString();
+                else reader.skipValue();
+            }
+        }
+        assertEquals(JSONReader.Token.END_ARRAY, reader.currentToken());
+        assertEquals(JSONReader.Token.END_DOCUMENT, reader.nextToken());
+        assertEquals(-1, sum);
+        assertEquals("a'b", name);
+    }
+
+    @Test
+    public void writerTest() throws Exception
+    {
+        var json = SimpleJSON.parser(DOC);
+        var out = new java.io.ByteArrayOutputStream();
+        try (var w = new JSONWriter(out)) {
+            w.write(json.getJSON());
+        }
+        assertEquals(json.toString(), out.toString(StandardCharsets.UTF_8));
+
+        var sb = new StringBuilder();
+        new JSONWriter(sb).beginObject().key("s").string("a\"b\n")
+            .key("n").value(12L).key("l").beginArray().value(true).nullValue()
+            .endArray().endObject();
+        assertEquals("{\"s\":\"a\\\"b\\n\",\"n\":12,\"l\":[true,null]}", sb.toString());
+        var reader = new JSONReader(sb.toString());
+        reader.nextToken();
+        reader.nextToken();
+        assertEquals("a\"b\n", reader.readString());
+
+        reader = new JSONReader(DOC);
+        reader.nextToken();
+        sb.setLength(0);
+        new JSONWriter(sb).copy(reader);
+        assertEquals(json.toString(), sb.toString());
+
+        String nested = "{\"a\":[[[]],{},[1,,{\"b\":[]}],[{}]],\"c\":{}}";
+        reader = new JSONReader(nested);
+        reader.nextToken();
+        sb.setLength(0);
+        new JSONWriter(sb).copy(reader);
+        assertEquals(SimpleJSON.parser(nested).toString(), sb.toString());
+
+        // The root array drops its empty members too.
+        reader = new JSONReader("[[],{},[[]],1,,[{}]]");
+        reader.nextToken();
+        sb.setLength(0);
+        new JSONWriter(sb).copy(reader);
+        assertEquals("[1]", sb.toString());
+    }
+
+    @Test
+    public void parallelArrayTest() throws Exception
+    {
+        var sb = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            sb.append("{\"i\":").append(i).append(",\"s\":\"]},\"},[],")
+                .append(i).append("'x,");
+        }
+        sb.append("{\"a\":6'46}]");
+        String doc = sb.toString();
+
+        var reader = new JSONReader(doc);
+        String expected = SimpleJSON.build(reader, reader.nextToken()).toString();
+        var array = SimpleJSON.parallelArrayParser(doc);
+        assertEquals(10001, array.getMembers().size());
+        assertEquals(expected, array.toString());
+        assertEquals(expected, SimpleJSON.parallelArrayParser(
+            ByteBuffer.wrap(doc.getBytes(StandardCharsets.UTF_8))).toString());
+        try {
+            SimpleJSON.parallelArrayParser(new JSONCharTokenizer(new StringReader(doc)),
+                java.util.concurrent.ForkJoinPool.commonPool());
+            fail();
+        } catch (IllegalArgumentException e) {
+            // A reader can't be forked.
+        }
+        var path = Files.createTempFile("simple-json", ".json");
+        try {
+            Files.write(path, doc.getBytes(StandardCharsets.UTF_8));
+            try (var t = JSONByteTokenizer.map(path, 4096)) {
+                assertFalse(t.canFork());
+                SimpleJSON.parallelArrayParser(t,
+                    java.util.concurrent.ForkJoinPool.commonPool());
+                fail();
+            } catch (IllegalArgumentException e) {
+                // The windows of a file can't be forked.
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void keyTableTest() throws Exception
+    {
+        String a = SimpleJSON.parser("{\"price\":1}").getJSON().keys().iterator().next();
+        String b = SimpleJSON.parser(ByteBuffer.wrap(
+            "{'price':2}".getBytes(StandardCharsets.UTF_8)))
+            .getJSON().keys().iterator().next();
+        assertSame(a, b);
+
+        var t = new JSONCharTokenizer("{\"price\":3}");
+        t.setKeyTable(null);
+        String c = SimpleJSON.parser(t).getJSON().keys().iterator().next();
+        assertEquals(a, c);
+        assertFalse(a == c);
+    }
+
+    @Test
+    public void nativeAccessorTest() throws Exception
+    {
+        var json = SimpleJSON.parser("{\"n\":-42 ,\"q\":' 7 ',\"d\":2.5e1,"
+            + "\"b\":true,\"z\":null,\"s\":\"a\\tb\"}").getJSON();
+        var n = (SimpleJSON.NativeExp) json.valueOfKey("n");
+        assertEquals(SimpleJSON.NativeExp.Type.NUMBER, n.getType());
+        assertEquals(-42L, n.asLong());
+        assertEquals(-42.0, n.asDouble(), 0.0);
+        assertEquals(7L, ((SimpleJSON.NativeExp) json.valueOfKey("q")).asLong());
+        assertEquals(25.0, ((SimpleJSON.NativeExp) json.valueOfKey("d")).asDouble(), 0.0);
+        assertTrue(((SimpleJSON.NativeExp) json.valueOfKey("b")).asBoolean());
+        assertTrue(((SimpleJSON.NativeExp) json.valueOfKey("z")).isNull());
+        assertNull(((SimpleJSON.NativeExp) json.valueOfKey("z")).asString());
+
+        var s = (SimpleJSON.NativeExp) json.valueOfKey("s");
+        assertEquals(SimpleJSON.NativeExp.Type.STRING, s.getType());
+        assertEquals("a\tb", s.asString());
+        assertSame(s.asString(), s.asString());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void nativeNotNumberTest() throws Exception
+    {
+        ((SimpleJSON.NativeExp) SimpleJSON.parser("{\"b\":true}").getJSON()
+            .valueOfKey("b")).asLong();
+    }
+
+    @Test
+    public void builderTest() throws Exception
+    {
+        var json = new JSONBuilder().beginObject()
+            .key("s").string("a\"b\n").key("n").value(12L)
+            .key("l").beginArray().value(true).beginArray().endArray()
+            .nullValue().endArray()
+            .key("o").beginObject().key("x").value("1").endObject()
+            .endObject().buildJSON();
+        assertEquals(SimpleJSON.parser(json.toString()).toString(), json.toString());
+        assertEquals("{\"s\":\"a\\\"b\\n\",\"n\":12,\"l\":[true,null],\"o\":{\"x\":1}}",
+            json.toString());
+        var s = (SimpleJSON.NativeExp) json.getJSON().valueOfKey("s");
+        assertEquals("a\"b\n", s.asString());
+
+        var m = new java.util.LinkedHashMap<String, String>();
+        m.put("a", "\"x\"");
+        m.put("b", "[1,{\"c\":2}]");
+        var made = SimpleJSONMaker.makeFromStringPair(m);
+        assertEquals("{\"a\":\"x\",\"b\":[1,{\"c\":2}]}", made.toString());
+        assertEquals("[1,\"a\",{\"b\":2}]", SimpleJSONMaker.makeExpFromList(
+            java.util.List.of("1", "\"a\"", "", "{\"b\":2}")).toString());
+    }
+
+    @Test
+    public void wordScanTest() throws Exception
+    {
+        String text = "{\n        \"a\" :  \"" + "0123456789".repeat(5) + "\\\"\\\\x\",\n"
+            + "\t\t\"b\": [ 'it\\'s \"quoted\"' , {\"c\":\"中文中文中文\"} ]\n}";
+        byte[] b = text.getBytes(StandardCharsets.UTF_8);
+        assertEquals(SimpleJSON.parser(text).toString(),
+            SimpleJSON.parser(ByteBuffer.wrap(b)).toString());
+        var direct = ByteBuffer.allocateDirect(b.length).put(b).flip();
+        assertEquals(SimpleJSON.parser(text).toString(),
+            SimpleJSON.lazyParser(direct).toString());
+    }
+
+    @Test(expected = SimpleJSON.JSONFormatException.class)
+    public void illegalTest() throws Exception
+    {
+        SimpleJSON.parser(new StringReader("{\"a\":tr{ue}"));
+    }
+}
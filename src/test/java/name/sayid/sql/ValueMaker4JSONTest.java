@@ -0,0 +1,47 @@
+package name.sayid.sql;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ValueMaker4JSONTest {
+    public static class Counter
+    {
+        @RespAnnotation(respField = "i")
+        public int i;
+    }
+
+    public static class CounterList
+    {
+        @RespAnnotation(respField = "list", isList = true, itemClass = Counter.class)
+        public List<Counter> list;
+    }
+
+    @Test
+    public void parallelListTest() throws Exception
+    {
+        var b = new JSONBuilder().beginObject().key("list").beginArray();
+        for (int k = 0; k < 3000; k++) {
+            b.beginObject().key("i");
+            if (k % 100 == 0) b.string("x"); else b.value(k);
+            b.endObject();
+        }
+        var json = b.endArray().endObject().buildJSON();
+
+        int threshold = ValueMaker4JSON.getParallelThreshold();
+        ValueMaker4JSON.setParallelThreshold(16);
+        try {
+            var o = ValueMaker4JSON.makeValue(CounterList.class, json.getJSON());
+            assertEquals(2970, o.list.size());
+            int k = 0;
+            for (Counter t : o.list) {
+                if (++k % 100 == 0) k++;
+                assertEquals(k, t.i);
+            }
+        } finally {
+            ValueMaker4JSON.setParallelThreshold(threshold);
+        }
+    }
+}